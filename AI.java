@@ -4,31 +4,70 @@
 
 package ataxx;
 
-import java.util.ArrayList;
 import java.util.Random;
-import static ataxx.PieceColor.*;
-import static ataxx.Board.*;
 
+import static ataxx.Utils.*;
+import static ataxx.GameException.error;
 
 /** A Player that computes its own moves.
  *  @author J. Masoudi
  */
 class AI extends Player {
 
-    /** Maximum minimax search depth before going to static evaluation. */
-    private static final int MAX_DEPTH = 4;
-    /** A position magnitude indicating a win (for red if positive, blue
-     *  if negative). */
-    private static final int WINNING_VALUE = Integer.MAX_VALUE - 20;
-    /** A magnitude greater than a normal value. */
-    private static final int INFTY = Integer.MAX_VALUE;
+    /** Default time budget per move, in milliseconds (see
+     *  Main.timeLimit). */
+    static final long DEFAULT_TIME_LIMIT = 500;
+
+    /** Ratio of the time after which a search is abandoned to the time
+     *  budget per move. */
+    private static final int HARD_LIMIT_FACTOR = 4;
+
+    /** Ratio of the time budget per move to the time given to the
+     *  endgame solver (see solve). */
+    static final int SOLVER_SHARE = 10;
 
     /** A new AI for GAME that will play MYCOLOR. SEED is used to initialize
      *  a random-number generator for use in move computations.  Identical
      *  seeds produce identical behaviour. */
     AI(Game game, PieceColor myColor, long seed) {
+        this(game, myColor, seed, "");
+    }
+
+    /** A new AI for GAME that will play MYCOLOR, using SEED as for the
+     *  three-argument constructor, and searching with the engine named
+     *  ENGINE: "minimax" or "" for a Searcher, "mtdf" for a Searcher
+     *  using MTD(f) at the root, "ybw" for a YbwSearcher, or "mcts" or
+     *  "puct" for an MctsSearcher using UCT or PUCT. */
+    AI(Game game, PieceColor myColor, long seed, String engine) {
         super(game, myColor);
         _random = new Random(seed);
+        switch (engine) {
+        case "":
+        case "minimax":
+        case "mtdf":
+            Searcher searcher = new Searcher(Main.tableSize());
+            searcher.setMtdf(engine.equals("mtdf"));
+            searcher.setEvalCache(Main.evalCacheSize());
+            _engine = searcher;
+            break;
+        case "ybw":
+            _engine = new YbwSearcher();
+            break;
+        case "mcts":
+        case "puct":
+            _engine = new MctsSearcher(Main.tableSize(),
+                                       engine.equals("puct"),
+                                       _random.nextLong());
+            break;
+        default:
+            throw error("unknown search engine: %s", engine);
+        }
+        _engine.setNotifier((e) -> {
+            if (game().analyzing()) {
+                game().reportPV(myColor(), e.depth(), e.value(),
+                                e.principalVariation());
+            }
+        });
     }
 
     @Override
@@ -44,142 +83,81 @@ class AI extends Player {
         }
         Main.startTiming();
         Move move = findMove();
-        Main.endTiming();
+        Main.endTiming(_depth);
         game().reportMove(move, myColor());
         return move.toString();
     }
 
     /** Return a move for me from the current position, assuming there
-     *  is a move. */
+     *  is a move, and set _depth.  With at most Solver.EMPTIES empty
+     *  squares, this is a move found by the endgame solver, if it
+     *  finishes in time; the search then gets what is left of the
+     *  budget. */
     private Move findMove() {
         Board b = new Board(getBoard());
-        _lastFoundMove = null;
-        if (myColor() == RED) {
-            minMax(b, MAX_DEPTH, true, 1, -INFTY, INFTY);
-        } else {
-            minMax(b, MAX_DEPTH, true, -1, -INFTY, INFTY);
-        }
-        return _lastFoundMove;
-    }
-
-    /** The move found by the last call to the findMove method
-     *  above. */
-    private Move _lastFoundMove;
-
-    /** Return a list of moves for position BOARD with all possible
-     *  legal moves for whose turn it is on. */
-    private ArrayList<Move> legalMoves(Board board) {
-        ArrayList<Move> goodMoves = new ArrayList();
-        for (int index = 0; index < EXTENDED_SIDE * EXTENDED_SIDE; index += 1) {
-            if (board.get(index) == board.whoseMove()) {
-                for (int i = -2; i <= 2; i += 1) {
-                    for (int j = -2; j <= 2; j += 1) {
-                        int moveTo = Board.neighbor(index, i, j);
-                        if (board.get(moveTo) == EMPTY) {
-                            char c0 = (char) ((index - (EXTENDED_SIDE * 2 + 2))
-                                    % EXTENDED_SIDE + 'a');
-                            char r0 = (char) ((index - (EXTENDED_SIDE * 2 + 2))
-                                    / EXTENDED_SIDE + '1');
-                            char c1 = (char)
-                                    ((moveTo - (EXTENDED_SIDE * 2 + 2))
-                                            % EXTENDED_SIDE + 'a');
-                            char r1 = (char)
-                                    ((moveTo - (EXTENDED_SIDE * 2 + 2))
-                                            / EXTENDED_SIDE + '1');
-                            if (board.legalMove(c0, r0, c1, r1)) {
-                                goodMoves.add(Move.move(c0, r0, c1, r1));
-                            }
-                        }
-                    }
-                }
-            }
-            if (board.legalMove(Move.pass())) {
-                goodMoves.add(Move.pass());
+        long limit = Main.timeLimit();
+        if (b.totalOpen() <= Solver.EMPTIES) {
+            long start = System.nanoTime();
+            Move move = solve(b, limit / SOLVER_SHARE);
+            if (move != null) {
+                _depth = b.totalOpen();
+                return move;
             }
+            limit = Math.max(1, limit - (System.nanoTime() - start)
+                             / Searcher.MILLIS);
         }
-        return goodMoves;
+        _engine.setThreads(game().threads());
+        _engine.setPruning(game().pruning());
+        _engine.setQuiescence(game().quiescence());
+        _engine.setEvaluator(game().evaluator());
+        Move move = _engine.findMove(b, Searcher.MAX_PLY, limit,
+                                     HARD_LIMIT_FACTOR * limit);
+        debug(1, "%s", _engine.statistics());
+        _depth = _engine.depth();
+        return move;
     }
 
-    /** Find a move from position BOARD and return its value, recording
-     *  the move found in _foundMove iff SAVEMOVE. The move
-     *  should have maximal value or have value > BETA if SENSE==1,
-     *  and minimal value or value < ALPHA if SENSE==-1. Searches up to
-     *  DEPTH levels.  Searching at level 0 simply returns a static estimate
-     *  of the board value and does not set _foundMove. If the game is over
-     *  on BOARD, does not set _foundMove. */
-    private int minMax(Board board, int depth, boolean saveMove, int sense,
-                       int alpha, int beta) {
-        /* We use WINNING_VALUE + depth as the winning value so as to favor
-         * wins that happen sooner rather than later (depth is larger the
-         * fewer moves have been made. */
-        ArrayList<Move> moves = legalMoves(board);
-        if (depth == 0 || board.getWinner() != null) {
-            return staticScore(board, WINNING_VALUE + depth);
+    /** Return a move for me from B, proven best by the endgame solver in
+     *  at most about LIMIT milliseconds, or null if the solver runs out
+     *  of time.  A win/draw/loss solve comes first, and then, with the
+     *  time left, an exact one, whose move is preferred if it finishes.
+     *  Reports the result (see Game.reportSolved). */
+    private Move solve(Board b, long limit) {
+        if (_solver == null) {
+            _solver = new Solver(Solver.DEFAULT_TABLE_SIZE);
         }
-        Move best = null;
-        if (sense == 1) {
-            int bestScore = -INFTY;
-            for (int i = 0; i < moves.size(); i += 1) {
-                board.makeMove(moves.get(i));
-                int potential = minMax(board, depth - 1,
-                        false, -1, alpha, beta);
-                if (potential > bestScore) {
-                    bestScore = potential;
-                    best = moves.get(i);
-                }
-                if (potential > alpha) {
-                    alpha = potential;
-                }
-                board.undo();
-                if (alpha >= beta) {
-                    return bestScore;
-                }
-            }
-            if (saveMove) {
-                _lastFoundMove = best;
-            }
-            return bestScore;
-        } else {
-            int bestScore = INFTY;
-            for (int i = 0; i < moves.size(); i += 1) {
-                board.makeMove(moves.get(i));
-                int potential2 = minMax(board, depth - 1,
-                    false, 1, alpha, beta);
-                if (potential2 < bestScore) {
-                    bestScore = potential2;
-                    best = moves.get(i);
-                }
-                if (potential2 < beta) {
-                    beta = potential2;
-                }
-                board.undo();
-                if (alpha >= beta) {
-                    return bestScore;
-                }
-
-            }
-            if (saveMove) {
-                _lastFoundMove = best;
+        long start = System.nanoTime();
+        Move move = _solver.solve(b, false, limit);
+        debug(1, "%s", _solver.statistics());
+        if (move == null) {
+            return null;
+        }
+        long left = limit - (System.nanoTime() - start) / Searcher.MILLIS;
+        if (left > 0) {
+            Move exact = _solver.solve(b, true, left);
+            debug(1, "%s", _solver.statistics());
+            if (exact != null) {
+                move = exact;
             }
-            return bestScore;
         }
-
+        if (game().analyzing()) {
+            game().reportSolved(myColor(), _solver.value(), _solver.exact(),
+                                _solver.principalVariation());
+        }
+        return move;
     }
 
-    /** Return a heuristic value for BOARD.  This value is +- WINNINGVALUE in
-     *  won positions, and 0 for ties. */
-    private int staticScore(Board board, int winningValue) {
-        PieceColor winner = board.getWinner();
-        if (winner != null) {
-            return switch (winner) {
-            case RED -> winningValue;
-            case BLUE -> -winningValue;
-            default -> 0;
-            };
-        }
-        return board.redPieces() - board.bluePieces();
+    /** The search engine, which owns the move buffers and other storage
+     *  reused from one move to the next. */
+    private final Engine _engine;
 
-    }
+    /** The endgame solver, created when first needed. */
+    private Solver _solver;
+
+    /** Depth of the search for my last move (see Main.endTiming): the
+     *  engine's, or, if the solver found the move, the number of empty
+     *  squares it searched to the end of the game. */
+    private int _depth;
 
     /** Pseudo-random number generator for move computation. */
     private Random _random = new Random();
@@ -0,0 +1,981 @@
+/* Skeleton code copyright (C) 2008, 2022 Paul N. Hilfinger and the
+ * Regents of the University of California.  Do not distribute this or any
+ * derivative work without permission. */
+
+package ataxx;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.SplittableRandom;
+
+import static ataxx.PieceColor.*;
+
+/** Microbenchmarks for the Ataxx engine.  Usage:
+ *       java ataxx.Benchmark [ NAME ... ]
+ *  runs the benchmarks named by the NAMEs, or all of them if there are
+ *  none.  Each benchmark prints its results on the standard output.
+ *  Timings are only indicative: each is the best of several runs after
+ *  a warm-up, measured with System.nanoTime.
+ *  @author J. Masoudi
+ */
+public class Benchmark {
+
+    /** Run the benchmarks named in ARGS (all if ARGS is empty). */
+    public static void main(String[] args) {
+        String[] names = args.length == 0 ? NAMES : args;
+        for (String name : names) {
+            switch (name) {
+            case "mobility":
+                mobility();
+                break;
+            case "clones":
+                clones();
+                break;
+            case "symmetry":
+                symmetry();
+                break;
+            case "smp":
+                smp();
+                break;
+            case "ybw":
+                ybw();
+                break;
+            case "mtdf":
+                mtdf();
+                break;
+            case "probcut":
+                probCut();
+                break;
+            case "prune":
+                prune();
+                break;
+            case "quiesce":
+                quiesce();
+                break;
+            case "mcts":
+                mcts();
+                break;
+            case "playouts":
+                playouts();
+                break;
+            case "eval":
+                eval();
+                break;
+            case "nnue":
+                nnue();
+                break;
+            case "patterns":
+                patterns();
+                break;
+            case "evalcache":
+                evalCache();
+                break;
+            case "solver":
+                solver();
+                break;
+            default:
+                System.err.printf("unknown benchmark: %s%n", name);
+                System.exit(1);
+            }
+        }
+    }
+
+    /** The names of all benchmarks, in the order they are run by
+     *  default. */
+    private static final String[] NAMES = {
+        "mobility", "clones", "symmetry", "smp", "ybw", "mtdf", "probcut",
+        "prune", "quiesce", "mcts", "playouts", "eval", "nnue",
+        "patterns", "evalcache", "solver",
+    };
+
+    /** Compare the cost of the end-of-game test as the original
+     *  scan-based canMove did it with the incremental frontier test, and
+     *  report the cost of a make/undo pair, checked and unchecked. */
+    static void mobility() {
+        Board[] positions = samplePositions(POSITIONS, SEED);
+        double scan = time(positions, (b) -> {
+            return (scanCanMove(b, RED) || scanCanMove(b, BLUE)) ? 1 : 0;
+        });
+        double frontier = time(positions, (b) -> {
+            return (b.canMove(RED) || b.canMove(BLUE)) ? 1 : 0;
+        });
+        Move[] moves = new Move[positions.length];
+        /* Calls of the bodies below step through positions and moves
+         * together, so each move is made on the position it is for. */
+        for (int i = 0; i < positions.length; i += 1) {
+            moves[i] = randomMove(positions[i], new Random(i));
+        }
+        int[] next = new int[1];
+        double makeUndo = time(positions, (b) -> {
+            Move mv = moves[next[0]++ % moves.length];
+            b.makeMove(mv);
+            b.undo();
+            return 1;
+        });
+        double unchecked = time(positions, (b) -> {
+            Move mv = moves[next[0]++ % moves.length];
+            b.makeMoveUnchecked(mv.packed());
+            b.undoUnchecked();
+            return 1;
+        });
+        System.out.printf("mobility: game-over test, board scan: %8.1f ns%n",
+                          scan);
+        System.out.printf("mobility: game-over test, frontier:   %8.1f ns"
+                          + "  (%.0fx)%n", frontier, scan / frontier);
+        System.out.printf("mobility: makeMove + undo:            %8.1f ns%n",
+                          makeUndo);
+        System.out.printf("mobility: unchecked make + undo:      %8.1f ns%n",
+                          unchecked);
+    }
+
+    /** Report leaf counts of the full game tree (perft) from the initial
+     *  position and the sizes of AI searches, with and without merging
+     *  extends onto the same square (see Board.legalMoves). */
+    static void clones() {
+        Board start = new Board();
+        for (int depth = 1; depth <= PERFT_DEPTH; depth += 1) {
+            long merged = new Perft(true).count(start, depth);
+            long all = new Perft(false).count(start, depth);
+            System.out.printf("clones: perft(%d) %12d merged %12d all"
+                              + "  (%.2fx)%n", depth, merged, all,
+                              (double) all / merged);
+        }
+        Searcher merged = new Searcher(), unmerged = new Searcher();
+        unmerged.setMergeClones(false);
+        Board[] positions = samplePositions(SEARCH_POSITIONS, SEED);
+        long mergedNodes, allNodes;
+        mergedNodes = allNodes = 0;
+        for (Board b : positions) {
+            merged.findMove(b, SEARCH_DEPTH);
+            unmerged.findMove(b, SEARCH_DEPTH);
+            mergedNodes += merged.nodes();
+            allNodes += unmerged.nodes();
+        }
+        System.out.printf("clones: depth-%d search of %d positions: "
+                          + "%d nodes merged, %d all  (%.2fx)%n",
+                          SEARCH_DEPTH, positions.length, mergedNodes,
+                          allNodes, (double) allNodes / mergedNodes);
+    }
+
+    /** Report the cost of computing a symmetry-canonical key (see
+     *  Symmetry) compared with reading the ordinary key, and how much more
+     *  often positions from a set of self-play games repeat an earlier
+     *  position when identified by canonical key. */
+    static void symmetry() {
+        Board[] positions = samplePositions(POSITIONS, SEED);
+        double plain = time(positions, (b) -> (int) b.key());
+        double canonical = time(positions,
+                                (b) -> (int) Symmetry.canonical(b));
+        System.out.printf("symmetry: Board.key:           %8.1f ns%n", plain);
+        System.out.printf("symmetry: Symmetry.canonical:  %8.1f ns%n",
+                          canonical);
+        ArrayList<Board> games = selfPlay(SELF_PLAY_GAMES, SEED);
+        HashSet<Long> keys = new HashSet<>(), canonicals = new HashSet<>();
+        int keyHits, canonicalHits;
+        keyHits = canonicalHits = 0;
+        for (Board b : games) {
+            if (!keys.add(b.key())) {
+                keyHits += 1;
+            }
+            if (!canonicals.add(Symmetry.keyOf(Symmetry.canonical(b)))) {
+                canonicalHits += 1;
+            }
+        }
+        System.out.printf("symmetry: %d positions from %d self-play games: "
+                          + "%.1f%% repeats by key, %.1f%% by canonical key"
+                          + "%n", games.size(), SELF_PLAY_GAMES,
+                          100.0 * keyHits / games.size(),
+                          100.0 * canonicalHits / games.size());
+    }
+
+    /** Report time to depth SMP_DEPTH and nodes per second of timed
+     *  searches (see Searcher.setThreads) using 1, 2, 4, and 8 threads,
+     *  over SMP_POSITIONS positions, after an untimed warm-up. */
+    static void smp() {
+        Board[] positions = samplePositions(SMP_POSITIONS, SEED);
+        System.out.printf("smp: %d processors available%n",
+                          Runtime.getRuntime().availableProcessors());
+        smpRun(positions, 1);
+        double base = 0;
+        for (int threads = 1; threads <= 8; threads *= 2) {
+            long start = System.nanoTime();
+            long nodes = smpRun(positions, threads);
+            double secs = (System.nanoTime() - start) * 1e-9;
+            if (threads == 1) {
+                base = secs;
+            }
+            System.out.printf("smp: %d threads: depth %d in %6.1f msec/position"
+                              + "  (%.2fx), %.0f nodes/sec%n", threads,
+                              SMP_DEPTH, 1000 * secs / positions.length,
+                              base / secs, nodes / secs);
+        }
+    }
+
+    /** Search each of POSITIONS to depth SMP_DEPTH with a fresh
+     *  transposition table, using THREADS threads, and return the total
+     *  number of nodes searched. */
+    static long smpRun(Board[] positions, int threads) {
+        Searcher searcher = new Searcher();
+        searcher.setThreads(threads);
+        long nodes = 0;
+        for (Board b : positions) {
+            searcher.table().clear();
+            searcher.findMove(b, SMP_DEPTH, NO_LIMIT, NO_LIMIT);
+            nodes += searcher.nodes();
+        }
+        searcher.setThreads(1);
+        return nodes;
+    }
+
+    /** Report the speedup and search overhead (ratio of nodes searched)
+     *  of YbwSearcher with 2, 4, and 8 threads compared with one, and the
+     *  size of the same searches by Searcher, which has a transposition
+     *  table, over SMP_POSITIONS positions searched to depth YBW_DEPTH. */
+    static void ybw() {
+        Board[] positions = samplePositions(SMP_POSITIONS, SEED);
+        Searcher minimax = new Searcher();
+        long minimaxNodes = 0;
+        for (Board b : positions) {
+            minimax.table().clear();
+            minimax.findMove(b, YBW_DEPTH);
+            minimaxNodes += minimax.nodes();
+        }
+        System.out.printf("ybw: minimax: depth %d, %d nodes%n", YBW_DEPTH,
+                          minimaxNodes);
+        ybwRun(positions, 1);
+        double baseTime = 0;
+        long baseNodes = 0;
+        for (int threads = 1; threads <= 8; threads *= 2) {
+            long start = System.nanoTime();
+            long nodes = ybwRun(positions, threads);
+            double secs = (System.nanoTime() - start) * 1e-9;
+            if (threads == 1) {
+                baseTime = secs;
+                baseNodes = nodes;
+            }
+            System.out.printf("ybw: %d threads: depth %d in %6.1f msec/"
+                              + "position, %d nodes  (speedup %.2fx, "
+                              + "overhead %.2fx)%n",
+                              threads, YBW_DEPTH,
+                              1000 * secs / positions.length, nodes,
+                              baseTime / secs, (double) nodes / baseNodes);
+        }
+    }
+
+    /** Compare the nodes and time that Searcher takes to reach depths 1
+     *  to MTDF_DEPTH by iterative deepening, with a fresh transposition
+     *  table for each position, when it finds the value at the root by
+     *  principal variation search and by MTD(f), over SMP_POSITIONS
+     *  positions. */
+    static void mtdf() {
+        Board[] positions = samplePositions(SMP_POSITIONS, SEED);
+        for (int depth = 1; depth <= MTDF_DEPTH; depth += 1) {
+            long[] pvs = mtdfRun(positions, depth, false);
+            long[] mtdf = mtdfRun(positions, depth, true);
+            System.out.printf("mtdf: depth %d: pvs %d nodes, %d re-searches,"
+                              + " %.1f msec; mtdf %d nodes (%.2fx), %d "
+                              + "re-searches, %.1f msec%n", depth, pvs[0],
+                              pvs[1], pvs[2] * 1e-6, mtdf[0],
+                              (double) mtdf[0] / pvs[0], mtdf[1],
+                              mtdf[2] * 1e-6);
+        }
+    }
+
+    /** Search each of POSITIONS to depth DEPTH by iterative deepening,
+     *  with a fresh table, by MTD(f) iff MTDF.  Return the total nodes,
+     *  re-searches, and nanoseconds taken. */
+    static long[] mtdfRun(Board[] positions, int depth, boolean mtdf) {
+        Searcher searcher = new Searcher();
+        searcher.setMtdf(mtdf);
+        long[] result = new long[3];
+        for (Board b : positions) {
+            searcher.table().clear();
+            long start = System.nanoTime();
+            searcher.findMove(b, depth, NO_LIMIT, NO_LIMIT);
+            result[2] += System.nanoTime() - start;
+            result[0] += searcher.nodes();
+            result[1] += searcher.researches();
+        }
+        return result;
+    }
+
+    /** Calibrate ProbCut (see Searcher.probCut): fit the values of
+     *  positions from self-play searched to Searcher.PROBCUT_DEPTH plies
+     *  to those searched Searcher.PROBCUT_REDUCTION plies shallower by
+     *  least squares, and report the slope, offset, and standard
+     *  deviation of the residuals.  Values are from the point of view of
+     *  the player to move, and positions with winning values are left
+     *  out. */
+    static void probCut() {
+        ArrayList<Board> games = selfPlay(PROBCUT_GAMES, SEED);
+        Searcher searcher = new Searcher();
+        int deep = Searcher.PROBCUT_DEPTH;
+        int shallow = deep - Searcher.PROBCUT_REDUCTION;
+        double n = 0, sx = 0, sy = 0, sxx = 0, sxy = 0, syy = 0;
+        for (int i = 0; i < games.size(); i += PROBCUT_STRIDE) {
+            Board b = games.get(i);
+            if (!b.canMove(b.whoseMove())) {
+                continue;
+            }
+            int sense = b.whoseMove() == RED ? 1 : -1;
+            searcher.findMove(b, shallow);
+            double x = sense * searcher.value();
+            searcher.findMove(b, deep);
+            double y = sense * searcher.value();
+            if (Math.max(Math.abs(x), Math.abs(y))
+                >= Searcher.WINNING_VALUE - Searcher.MAX_PLY) {
+                continue;
+            }
+            n += 1;
+            sx += x;
+            sy += y;
+            sxx += x * x;
+            sxy += x * y;
+            syy += y * y;
+        }
+        double slope = (n * sxy - sx * sy) / (n * sxx - sx * sx);
+        double offset = (sy - slope * sx) / n;
+        double residuals = syy - 2 * slope * sxy - 2 * offset * sy
+            + slope * slope * sxx + 2 * slope * offset * sx
+            + n * offset * offset;
+        System.out.printf("probcut: depth %d from %d over %.0f positions: "
+                          + "slope %.3f, offset %.3f, sigma %.3f%n", deep,
+                          shallow, n, slope, offset,
+                          Math.sqrt(residuals / (n - 2)));
+    }
+
+    /** Compare the selective search techniques of Searcher (see
+     *  Searcher.setPruning), each alone and all together, with a full
+     *  width search: report the nodes and time taken to deepen to
+     *  PRUNE_DEPTH plies over SMP_POSITIONS positions, how often the
+     *  move chosen is the same, and the score of matches of
+     *  2 * MATCH_GAMES games at PRUNE_TIME milliseconds per move. */
+    static void prune() {
+        Board[] positions = samplePositions(SMP_POSITIONS, SEED);
+        String[] names = { "none", "lmr", "futility", "probcut", "all" };
+        int[] techniques = {
+            0, Searcher.LMR, Searcher.FUTILITY, Searcher.PROBCUT,
+            Searcher.LMR | Searcher.FUTILITY | Searcher.PROBCUT,
+        };
+        Move[] reference = new Move[positions.length];
+        for (int k = 0; k < techniques.length; k += 1) {
+            Searcher searcher = new Searcher();
+            searcher.setPruning(techniques[k]);
+            long nodes = 0, start = System.nanoTime();
+            int same = 0;
+            for (int i = 0; i < positions.length; i += 1) {
+                searcher.table().clear();
+                Move mv = searcher.findMove(positions[i], PRUNE_DEPTH,
+                                            NO_LIMIT, NO_LIMIT);
+                nodes += searcher.nodes();
+                if (k == 0) {
+                    reference[i] = mv;
+                }
+                same += mv.equals(reference[i]) ? 1 : 0;
+            }
+            double msecs = (System.nanoTime() - start) * 1e-6;
+            System.out.printf("prune: %-8s depth %d: %d nodes, %.1f msec/"
+                              + "position, same move %d/%d", names[k],
+                              PRUNE_DEPTH, nodes, msecs / positions.length,
+                              same, positions.length);
+            if (k == 0) {
+                System.out.println();
+            } else {
+                Searcher player = new Searcher(), other = new Searcher();
+                player.setPruning(techniques[k]);
+                System.out.printf(", match vs none %.1f/%d%n",
+                                  match(player, other, PRUNE_TIME),
+                                  2 * MATCH_GAMES);
+            }
+        }
+    }
+
+    /** Compare searches to depths 1 to QUIESCE_DEPTH with quiescence
+     *  thresholds (see Searcher.setQuiescence) of 0 (none) and 2 to 4,
+     *  over SMP_POSITIONS positions, with full-width searches to
+     *  QUIESCE_REFERENCE plies: report the nodes and time taken, the mean
+     *  difference of the values from the reference values (leaving out
+     *  winning values), and how often the move is the same. */
+    static void quiesce() {
+        Board[] positions = samplePositions(SMP_POSITIONS, SEED);
+        int[] values = new int[positions.length];
+        Move[] moves = new Move[positions.length];
+        Searcher searcher = new Searcher();
+        for (int i = 0; i < positions.length; i += 1) {
+            moves[i] = searcher.findMove(positions[i], QUIESCE_REFERENCE);
+            values[i] = searcher.value();
+        }
+        for (int threshold : new int[] { 0, 2, 3, 4 }) {
+            searcher.setQuiescence(threshold);
+            for (int depth = 1; depth <= QUIESCE_DEPTH; depth += 1) {
+                long nodes = 0, start = System.nanoTime();
+                int same = 0, n = 0;
+                double error = 0;
+                for (int i = 0; i < positions.length; i += 1) {
+                    searcher.table().clear();
+                    Move mv = searcher.findMove(positions[i], depth,
+                                                NO_LIMIT, NO_LIMIT);
+                    nodes += searcher.nodes();
+                    same += mv.equals(moves[i]) ? 1 : 0;
+                    int value = searcher.value();
+                    if (Math.max(Math.abs(value), Math.abs(values[i]))
+                        < Searcher.WINNING_VALUE - Searcher.MAX_PLY) {
+                        error += Math.abs(value - values[i]);
+                        n += 1;
+                    }
+                }
+                double msecs = (System.nanoTime() - start) * 1e-6;
+                System.out.printf("quiesce: threshold %d, depth %d: %d "
+                                  + "nodes, %.1f msec/position, error %.2f,"
+                                  + " same move %d/%d%n", threshold, depth,
+                                  nodes, msecs / positions.length,
+                                  error / n, same, positions.length);
+            }
+        }
+    }
+
+    /** Play MCTS_GAMES pairs of games between Searcher and MctsSearcher,
+     *  using UCT and using PUCT, at MCTS_TIME milliseconds per move, and
+     *  report the score of each MctsSearcher and its playouts per
+     *  second. */
+    static void mcts() {
+        for (boolean puct : new boolean[] { false, true }) {
+            MctsSearcher mcts =
+                new MctsSearcher(Searcher.DEFAULT_TABLE_SIZE, puct, SEED);
+            Board start = new Board();
+            mcts.findMove(start, 1, MCTS_TIME, MCTS_TIME);
+            System.out.printf("mcts: %s: %.0f playouts/sec, match vs "
+                              + "minimax %.1f/%d%n", puct ? "puct" : "uct",
+                              mcts.nodes() * 1000.0 / MCTS_TIME,
+                              match(mcts, new Searcher(), MCTS_TIME),
+                              2 * MATCH_GAMES);
+        }
+    }
+
+    /** Compare the time per random playout of MctsSearcher.playout
+     *  (uniform and greedy) with that of Playouts batches of
+     *  PLAYOUT_BATCH games, playing PLAYOUT_BATCH games from each of
+     *  SEARCH_POSITIONS positions, and report MctsSearcher's playout
+     *  rate when it evaluates each leaf with a batch of MCTS_BATCH. */
+    static void playouts() {
+        Board[] positions = samplePositions(SEARCH_POSITIONS, SEED);
+        SplittableRandom random = new SplittableRandom(SEED);
+        Playouts batch = new Playouts(PLAYOUT_BATCH, SEED);
+        int[] results = new int[PLAYOUT_BATCH];
+        double[] best = { Double.MAX_VALUE, Double.MAX_VALUE,
+                          Double.MAX_VALUE };
+        for (int round = -WARMUP; round < ROUNDS; round += 1) {
+            for (int kind = 0; kind < 3; kind += 1) {
+                long start = System.nanoTime();
+                for (Board b : positions) {
+                    if (kind == 2) {
+                        _sink += (int) batch.evaluate(b, results);
+                        continue;
+                    }
+                    for (int k = 0; k < PLAYOUT_BATCH; k += 1) {
+                        _sink +=
+                            MctsSearcher.playout(b.pieces(RED),
+                                                 b.pieces(BLUE),
+                                                 b.empties(), b.numJumps(),
+                                                 b.whoseMove() == RED,
+                                                 random, kind == 1);
+                    }
+                }
+                double t = (double) (System.nanoTime() - start)
+                    / (positions.length * PLAYOUT_BATCH);
+                if (round >= 0) {
+                    best[kind] = Math.min(best[kind], t);
+                }
+            }
+        }
+        System.out.printf("playouts: single, uniform: %8.1f ns/playout%n",
+                          best[0]);
+        System.out.printf("playouts: single, greedy:  %8.1f ns/playout%n",
+                          best[1]);
+        System.out.printf("playouts: batch of %d:    %8.1f ns/playout"
+                          + "  (%.1fx)%n", PLAYOUT_BATCH, best[2],
+                          best[0] / best[2]);
+        for (int size : new int[] { 1, MCTS_BATCH }) {
+            MctsSearcher mcts =
+                new MctsSearcher(Searcher.DEFAULT_TABLE_SIZE, false, SEED);
+            mcts.setPlayoutBatch(size);
+            mcts.findMove(new Board(), 1, MCTS_TIME, MCTS_TIME);
+            System.out.printf("playouts: mcts, %d per leaf: %.0f "
+                              + "playouts/sec%n", size,
+                              mcts.nodes() * 1000.0 / MCTS_TIME);
+        }
+    }
+
+    /** Compare the cost of the positional evaluation with that of
+     *  material alone, and report the score of a Searcher using it
+     *  against one using material at PRUNE_TIME milliseconds per move. */
+    static void eval() {
+        Board[] positions = samplePositions(POSITIONS, SEED);
+        Evaluator positional = new PositionalEvaluator();
+        double material = time(positions, Evaluator.MATERIAL::evaluate);
+        double features = time(positions, positional::evaluate);
+        System.out.printf("eval: material:   %8.1f ns%n", material);
+        System.out.printf("eval: positional: %8.1f ns  (%.1fx)%n",
+                          features, features / material);
+        Searcher searcher = new Searcher();
+        searcher.setEvaluator(positional);
+        System.out.printf("eval: positional vs material: %.1f/%d%n",
+                          match(searcher, new Searcher(), PRUNE_TIME),
+                          2 * MATCH_GAMES);
+    }
+
+    /** Report the evaluations per second of material, the positional
+     *  evaluation, and an NnueEvaluator of NNUE_HIDDEN1 and NNUE_HIDDEN2
+     *  hidden units, both of the positions after each legal move from
+     *  each of SEARCH_POSITIONS positions, in turn, as in a search, and of
+     *  unrelated positions, which the network must evaluate nearly from
+     *  scratch. */
+    static void nnue() {
+        Board[] positions = samplePositions(SEARCH_POSITIONS, SEED);
+        String[] names = { "material", "positional", "nnue" };
+        Evaluator[] evaluators = {
+            Evaluator.MATERIAL, new PositionalEvaluator(),
+            NnueEvaluator.random(NNUE_HIDDEN1, NNUE_HIDDEN2, SEED)
+        };
+        for (int e = 0; e < evaluators.length; e += 1) {
+            Evaluator eval = evaluators[e];
+            double unrelated = time(positions, eval::evaluate);
+            System.out.printf("nnue: %-10s %6.2fM evals/sec after moves,"
+                              + " %6.2fM unrelated%n", names[e],
+                              1000 / childTime(positions, eval),
+                              1000 / unrelated);
+        }
+    }
+
+    /** Search SMP_POSITIONS positions by iterative deepening to
+     *  EVAL_CACHE_DEPTH with the positional evaluation, an NnueEvaluator
+     *  of NNUE_HIDDEN1 and NNUE_HIDDEN2 hidden units, and a
+     *  PatternEvaluator, without and with an evaluation cache of the
+     *  default size, and report the times taken and the cache's hit
+     *  rate.  Every evaluator is cached here, whether or not it is worth
+     *  caching. */
+    static void evalCache() {
+        Board[] positions = samplePositions(SMP_POSITIONS, SEED);
+        String[] names = { "positional", "nnue", "patterns" };
+        Evaluator[] evaluators = {
+            new PositionalEvaluator(),
+            NnueEvaluator.random(NNUE_HIDDEN1, NNUE_HIDDEN2, SEED),
+            new PatternEvaluator(new short[PatternEvaluator.CLASSES
+                                           * PatternEvaluator.PATTERNS]),
+        };
+        for (int e = 0; e < evaluators.length; e += 1) {
+            long[] uncached = evalCacheRun(positions, evaluators[e], 0);
+            long[] cached = evalCacheRun(positions, evaluators[e],
+                                         Searcher.DEFAULT_EVAL_CACHE_SIZE);
+            System.out.printf("evalcache: %-10s uncached %7.1f msec, "
+                              + "cached %7.1f msec (%.2fx), %.1f%% hits%n",
+                              names[e], uncached[0] * 1e-6,
+                              cached[0] * 1e-6,
+                              (double) uncached[0] / cached[0],
+                              100.0 * cached[2] / Math.max(1, cached[1]));
+        }
+    }
+
+    /** Search each of POSITIONS to EVAL_CACHE_DEPTH by iterative
+     *  deepening, evaluating with EVAL, with fresh tables, and with an
+     *  evaluation cache of MEGABYTES megabytes (0 for none).  Return the
+     *  best-of-ROUNDS total nanoseconds taken, after a warm-up, and the
+     *  total evaluation-cache probes and hits of a round. */
+    static long[] evalCacheRun(Board[] positions, Evaluator eval,
+                               int megabytes) {
+        Searcher searcher = new Searcher();
+        searcher.setEvaluator(new Evaluator() {
+            @Override
+            public int evaluate(Board board) {
+                return eval.evaluate(board);
+            }
+
+            @Override
+            public boolean worthCaching() {
+                return true;
+            }
+        });
+        searcher.setEvalCache(megabytes);
+        long[] result = { Long.MAX_VALUE, 0, 0 };
+        for (int round = -WARMUP; round < ROUNDS; round += 1) {
+            long time = 0, probes = 0, hits = 0;
+            for (Board b : positions) {
+                searcher.table().clear();
+                searcher.setEvalCache(megabytes);
+                long start = System.nanoTime();
+                searcher.findMove(b, EVAL_CACHE_DEPTH, NO_LIMIT, NO_LIMIT);
+                time += System.nanoTime() - start;
+                probes += searcher.evalProbes();
+                hits += searcher.evalHits();
+            }
+            if (round >= 0 && time < result[0]) {
+                result[0] = time;
+                result[1] = probes;
+                result[2] = hits;
+            }
+        }
+        return result;
+    }
+
+    /** For each number E of empty squares from 1 to SOLVER_EMPTIES, take
+     *  the first position with E empty squares (and the game not over)
+     *  from each of SOLVER_GAMES self-play games, solve it first for
+     *  win/draw/loss and then exactly, each with a fresh hash table and a
+     *  limit of SOLVER_TIME milliseconds, and report how many of the
+     *  solves finished and their mean and greatest times and mean
+     *  nodes. */
+    static void solver() {
+        ArrayList<Board> games = selfPlay(SOLVER_GAMES, SEED);
+        Solver solver = new Solver(Solver.DEFAULT_TABLE_SIZE);
+        for (int e = 1; e <= SOLVER_EMPTIES; e += 1) {
+            ArrayList<Board> suite = new ArrayList<>();
+            for (int i = 0; i < games.size(); i += 1) {
+                Board b = games.get(i);
+                /* Empty squares never increase during a game. */
+                boolean first = i == 0 || games.get(i - 1).totalOpen() != e;
+                if (first && b.totalOpen() == e
+                    && b.computeWinner() == null) {
+                    suite.add(b);
+                }
+            }
+            for (boolean exact : new boolean[] { false, true }) {
+                int solved = 0;
+                long time = 0, maxTime = 0, nodes = 0;
+                for (Board b : suite) {
+                    solver.table().clear();
+                    if (solver.solve(b, exact, SOLVER_TIME) != null) {
+                        solved += 1;
+                        time += solver.time();
+                        maxTime = Math.max(maxTime, solver.time());
+                        nodes += solver.nodes();
+                    }
+                }
+                System.out.printf("solver: %d empties, %-13s %2d/%2d "
+                                  + "solved, mean %8.2f msec, max %8.2f "
+                                  + "msec, %9d nodes%n", e,
+                                  exact ? "exact:" : "win/draw/loss:",
+                                  solved, suite.size(),
+                                  time * 1e-6 / Math.max(1, solved),
+                                  maxTime * 1e-6,
+                                  nodes / Math.max(1, solved));
+            }
+        }
+    }
+
+    /** Return the best-of-ROUNDS mean time in nanoseconds, after a
+     *  warm-up, to make each legal move from each of POSITIONS,
+     *  evaluate the result with EVAL, and undo the move. */
+    static double childTime(Board[] positions, Evaluator eval) {
+        int[] moves = new int[Board.MAX_LEGAL_MOVES];
+        double best = Double.MAX_VALUE;
+        for (int round = -WARMUP; round < ROUNDS; round += 1) {
+            long count = 0;
+            long start = System.nanoTime();
+            for (Board b : positions) {
+                int n = b.legalMoves(moves, 0);
+                for (int i = 0; i < n; i += 1) {
+                    b.makeMoveUnchecked(moves[i]);
+                    _sink += eval.evaluate(b);
+                    b.undoUnchecked();
+                }
+                count += n;
+            }
+            if (round >= 0) {
+                best = Math.min(best,
+                                (double) (System.nanoTime() - start) / count);
+            }
+        }
+        return best;
+    }
+
+    /** Fit pattern tables (see PatternEvaluator.fit) to the values found
+     *  by PATTERN_DEPTH-ply positional searches of three quarters of the
+     *  positions of PATTERN_GAMES self-play games, and report the mean
+     *  error of the fit and of the other evaluations on the remaining
+     *  quarter, the evaluations per second of each (as for nnue), and
+     *  the score of a Searcher using the tables against one using
+     *  material and one using the positional evaluation at PRUNE_TIME
+     *  milliseconds per move. */
+    static void patterns() {
+        ArrayList<Board> games = selfPlay(PATTERN_GAMES, SEED);
+        Searcher searcher = new Searcher();
+        Evaluator positional = new PositionalEvaluator();
+        searcher.setEvaluator(positional);
+        ArrayList<Board> train = new ArrayList<>(), test = new ArrayList<>();
+        ArrayList<Integer> trainValues = new ArrayList<>(),
+            testValues = new ArrayList<>();
+        for (int i = 0; i < games.size(); i += 1) {
+            Board b = games.get(i);
+            searcher.findMove(new Board(b), PATTERN_DEPTH);
+            int value = Math.max(-Squares.SIZE,
+                                 Math.min(Squares.SIZE, searcher.value()));
+            (i % 4 == 0 ? test : train).add(b);
+            (i % 4 == 0 ? testValues : trainValues).add(value);
+        }
+        long start = System.nanoTime();
+        PatternEvaluator patterns =
+            PatternEvaluator.fit(train.toArray(new Board[0]),
+                                 trainValues.stream()
+                                 .mapToInt(Integer::intValue).toArray(),
+                                 PATTERN_EPOCHS);
+        System.out.printf("patterns: fitted to %d positions in %.1f "
+                          + "sec%n", train.size(),
+                          (System.nanoTime() - start) / 1e9);
+        Board[] positions = test.toArray(new Board[0]);
+        String[] names = { "material", "positional", "patterns" };
+        Evaluator[] evaluators = {
+            Evaluator.MATERIAL, positional, patterns
+        };
+        for (int e = 0; e < evaluators.length; e += 1) {
+            double error = 0;
+            for (int i = 0; i < positions.length; i += 1) {
+                error += Math.abs(evaluators[e].evaluate(positions[i])
+                                  - testValues.get(i));
+            }
+            System.out.printf("patterns: %-10s mean error %5.2f, %6.2fM "
+                              + "evals/sec after moves%n", names[e],
+                              error / positions.length,
+                              1000 / childTime(positions, evaluators[e]));
+        }
+        for (int e = 0; e < 2; e += 1) {
+            Searcher player = new Searcher(), other = new Searcher();
+            player.setEvaluator(patterns);
+            other.setEvaluator(evaluators[e]);
+            System.out.printf("patterns: vs %s: %.1f/%d%n", names[e],
+                              match(player, other, PRUNE_TIME),
+                              2 * MATCH_GAMES);
+        }
+    }
+
+    /** Return the score (1 per win, 0.5 per draw) of PLAYER against
+     *  OTHER over MATCH_GAMES pairs of games, each pair from a random
+     *  opening of SELF_PLAY_OPENING moves, playing each side once, with
+     *  TIME milliseconds per move. */
+    static double match(Engine player, Engine other, long time) {
+        Random random = new Random(SEED);
+        double score = 0;
+        for (int k = 0; k < MATCH_GAMES; k += 1) {
+            Board opening = new Board();
+            for (int i = 0; i < SELF_PLAY_OPENING; i += 1) {
+                opening.makeMove(randomMove(opening, random));
+            }
+            for (PieceColor side : new PieceColor[] { RED, BLUE }) {
+                Board b = new Board(opening);
+                while (b.getWinner() == null) {
+                    Engine mover = b.whoseMove() == side ? player : other;
+                    if (!b.canMove(b.whoseMove())) {
+                        b.pass();
+                    } else {
+                        b.makeMove(mover.findMove(new Board(b),
+                                                  Searcher.MAX_PLY, time,
+                                                  4 * time));
+                    }
+                }
+                score += b.getWinner() == side ? 1
+                    : b.getWinner() == EMPTY ? 0.5 : 0;
+            }
+        }
+        return score;
+    }
+
+    /** Search each of POSITIONS to depth YBW_DEPTH with a YbwSearcher
+     *  using THREADS threads, and return the total number of nodes
+     *  searched. */
+    static long ybwRun(Board[] positions, int threads) {
+        YbwSearcher searcher = new YbwSearcher();
+        searcher.setThreads(threads);
+        long nodes = 0;
+        for (Board b : positions) {
+            searcher.findMove(b, YBW_DEPTH);
+            nodes += searcher.nodes();
+        }
+        searcher.setThreads(1);
+        return nodes;
+    }
+
+    /** Return all positions, in order, from N games in which a Searcher
+     *  plays both sides to depth SELF_PLAY_DEPTH after SELF_PLAY_OPENING
+     *  random moves chosen using a generator seeded with SEED. */
+    static ArrayList<Board> selfPlay(int n, long seed) {
+        Random random = new Random(seed);
+        Searcher searcher = new Searcher();
+        ArrayList<Board> result = new ArrayList<>();
+        for (int k = 0; k < n; k += 1) {
+            Board b = new Board();
+            while (b.getWinner() == null) {
+                result.add(new Board(b));
+                if (b.numMoves() < SELF_PLAY_OPENING) {
+                    b.makeMove(randomMove(b, random));
+                } else if (!b.canMove(b.whoseMove())) {
+                    b.pass();
+                } else {
+                    b.makeMove(searcher.findMove(b, SELF_PLAY_DEPTH));
+                }
+            }
+        }
+        return result;
+    }
+
+    /** Return true iff WHO has a move on B, found by looking at every
+     *  square of B.  This is the method Board.canMove used before
+     *  frontiers were maintained incrementally. */
+    static boolean scanCanMove(Board b, PieceColor who) {
+        for (char c = 'a'; c <= 'g'; c += 1) {
+            for (char r = '1'; r <= '7'; r += 1) {
+                if (b.get(c, r) != who) {
+                    continue;
+                }
+                for (int dc = -2; dc <= 2; dc += 1) {
+                    for (int dr = -2; dr <= 2; dr += 1) {
+                        if (b.get((char) (c + dc), (char) (r + dr))
+                            == EMPTY) {
+                            return true;
+                        }
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /** A benchmark body: an operation on a Board returning an int, which
+     *  is accumulated to keep the compiler from discarding the work. */
+    interface Body {
+        /** Perform the operation on B. */
+        int run(Board b);
+    }
+
+    /** Return the best-of-ROUNDS mean time in nanoseconds of one call of
+     *  BODY, applied in turn to each of POSITIONS, after a warm-up. */
+    static double time(Board[] positions, Body body) {
+        int reps = Math.max(1, CALLS / positions.length);
+        double best = Double.MAX_VALUE;
+        for (int round = -WARMUP; round < ROUNDS; round += 1) {
+            long start = System.nanoTime();
+            for (int k = 0; k < reps; k += 1) {
+                for (Board b : positions) {
+                    _sink += body.run(b);
+                }
+            }
+            double t = (double) (System.nanoTime() - start)
+                / (reps * positions.length);
+            if (round >= 0) {
+                best = Math.min(best, t);
+            }
+        }
+        return best;
+    }
+
+    /** Return N positions from random games started with SEED, taken at
+     *  all stages of the game, with and without blocks.  None is a
+     *  finished game. */
+    static Board[] samplePositions(int n, long seed) {
+        Random random = new Random(seed);
+        ArrayList<Board> result = new ArrayList<>();
+        while (result.size() < n) {
+            Board b = new Board();
+            if (random.nextBoolean()) {
+                b.setBlock((char) ('a' + random.nextInt(3)),
+                           (char) ('2' + random.nextInt(2)));
+            }
+            while (b.getWinner() == null && result.size() < n) {
+                if (random.nextInt(4) == 0) {
+                    result.add(new Board(b));
+                }
+                b.makeMove(randomMove(b, random));
+            }
+        }
+        return result.toArray(new Board[0]);
+    }
+
+    /** Return a random legal move on B (a pass if B.whoseMove() cannot
+     *  move), chosen using RANDOM. */
+    static Move randomMove(Board b, Random random) {
+        long from = b.pieces(b.whoseMove());
+        long empty = b.empties();
+        int n = 0;
+        for (long p = from; p != 0; p &= p - 1) {
+            n += Squares.count(Squares.reach(Squares.first(p)) & empty);
+        }
+        if (n == 0) {
+            return Move.pass();
+        }
+        int k = random.nextInt(n);
+        for (long p = from; p != 0; p &= p - 1) {
+            int sq = Squares.first(p);
+            for (long to = Squares.reach(sq) & empty; to != 0;
+                 to &= to - 1, k -= 1) {
+                if (k == 0) {
+                    int sq1 = Squares.first(to);
+                    return Move.move(Squares.col(sq), Squares.row(sq),
+                                     Squares.col(sq1), Squares.row(sq1));
+                }
+            }
+        }
+        throw new Error("internal error: move not found");
+    }
+
+    /** Number of sample positions per benchmark. */
+    static final int POSITIONS = 2000;
+    /** Depth of the deepest perft. */
+    static final int PERFT_DEPTH = 5;
+    /** Number of positions and depth for search-size comparisons. */
+    static final int SEARCH_POSITIONS = 200, SEARCH_DEPTH = 4;
+    /** Number of self-play games, number of random opening moves in each,
+     *  and search depth for the rest. */
+    static final int SELF_PLAY_GAMES = 100, SELF_PLAY_OPENING = 3,
+        SELF_PLAY_DEPTH = 2;
+    /** Number of positions and search depth for thread scaling. */
+    static final int SMP_POSITIONS = 20, SMP_DEPTH = 8;
+    /** Depth of searches for YBW comparisons. */
+    static final int YBW_DEPTH = 5;
+    /** Deepest search compared by mtdf. */
+    static final int MTDF_DEPTH = 7;
+    /** Number of self-play games for ProbCut calibration, and interval
+     *  between the positions from them that are used. */
+    static final int PROBCUT_GAMES = 20, PROBCUT_STRIDE = 3;
+    /** Search depth for comparisons of selective search techniques. */
+    static final int PRUNE_DEPTH = 6;
+    /** Number of pairs of games in each match (see match). */
+    static final int MATCH_GAMES = 5;
+    /** Time per move in milliseconds in matches between selective search
+     *  techniques. */
+    static final long PRUNE_TIME = 50;
+    /** Deepest search, and depth of the reference searches, for
+     *  quiescence comparisons. */
+    static final int QUIESCE_DEPTH = 5, QUIESCE_REFERENCE = 7;
+    /** Time per move in milliseconds in matches of MctsSearcher against
+     *  Searcher. */
+    static final long MCTS_TIME = 100;
+    /** Number of games in batches of playouts, and in MctsSearcher's
+     *  per-leaf batches. */
+    static final int PLAYOUT_BATCH = 256, MCTS_BATCH = 8;
+    /** Numbers of hidden units of the network measured by nnue. */
+    static final int NNUE_HIDDEN1 = 64, NNUE_HIDDEN2 = 16;
+    /** Depth of the searches of evalCache. */
+    static final int EVAL_CACHE_DEPTH = 5;
+    /** Number of self-play games giving the positions of solver, most
+     *  empty squares of those positions, and time limit of each solve,
+     *  in milliseconds. */
+    static final int SOLVER_GAMES = 10, SOLVER_EMPTIES = 6;
+    static final long SOLVER_TIME = 1000;
+    /** Number of self-play games, depth of the searches giving the
+     *  values fitted, and number of passes of the fit, for patterns. */
+    static final int PATTERN_GAMES = 200, PATTERN_DEPTH = 2,
+        PATTERN_EPOCHS = 8;
+    /** A time limit, in milliseconds, that searches never reach.  (The
+     *  deadline is computed in nanoseconds, and must not overflow.) */
+    private static final long NO_LIMIT = 1_000_000_000;
+    /** Seed for sample positions. */
+    static final long SEED = 61;
+    /** Approximate number of timed calls per round. */
+    private static final int CALLS = 2_000_000;
+    /** Number of untimed warm-up rounds. */
+    private static final int WARMUP = 3;
+    /** Number of timed rounds. */
+    private static final int ROUNDS = 5;
+
+    /** Accumulates benchmark results. */
+    private static long _sink;
+}
@@ -7,7 +7,6 @@ package ataxx;
 import java.util.Arrays;
 import java.util.List;
 import java.util.ArrayList;
-import java.util.Stack;
 import java.util.Formatter;
 
 import java.util.function.Consumer;
@@ -33,6 +32,12 @@ import static ataxx.GameException.error;
  *  integer, which we call its "linearized index".  This is simply the
  *  number of the square in row-major order (counting from 0).
  *
+ *  Internally, the contents of the board are kept as bitboards (see
+ *  Squares): one long each for the red pieces, the blue pieces, and the
+ *  blocks.  Captures, clone targets, and jump targets are then computed
+ *  with a few logical operations on the precomputed neighbor masks in
+ *  Squares, rather than by walking the extended board.
+ *
  *  Moves on this board are denoted by Moves.
  *  @author J. Masoudi
  */
@@ -48,9 +53,19 @@ class Board {
     /** Number of consecutive non-extending moves before game ends. */
     static final int JUMP_LIMIT = 25;
 
+    /** Initial capacity of the undo journal, which doubles when full.
+     *  Boards are copied often during searches, and most copies make
+     *  only as many moves as the search is deep. */
+    static final int INITIAL_MOVES = 64;
+
+    /** An upper bound on the number of legal moves in any position.  Each
+     *  move pairs a piece with an empty square at most two rows and
+     *  columns away, so there are at most 24 moves per piece and 24 per
+     *  empty square, and there are at most 24 of one or the other. */
+    static final int MAX_LEGAL_MOVES = 24 * 24;
+
     /** A new, cleared board in the initial configuration. */
     Board() {
-        _board = new PieceColor[EXTENDED_SIDE * EXTENDED_SIDE];
         setNotifier(NOP);
         clear();
     }
@@ -58,19 +73,24 @@ class Board {
     /** A board whose initial contents are copied from BOARD0, but whose
      *  undo history is clear, and whose notifier does nothing. */
     Board(Board board0) {
-        _board = board0._board.clone();
+        copyFrom(board0);
+        setNotifier(NOP);
+    }
+
+    /** Set my contents to those of BOARD0 and clear my undo history,
+     *  without notifying my observers or allocating.  For searches that
+     *  reuse boards rather than copy them (see YbwSearcher). */
+    void copyFrom(Board board0) {
+        _red = board0._red;
+        _blue = board0._blue;
+        _blocked = board0._blocked;
         _whoseMove = board0.whoseMove();
         _numJumps = board0._numJumps;
-        _totalOpen = board0._totalOpen;
-        _numPieces = new int[BLUE.ordinal() + 1];
+        _key = board0._key;
+        _redFrontier = board0._redFrontier;
+        _blueFrontier = board0._blueFrontier;
         _winner = board0._winner;
-        _allMoves = new ArrayList<>();
-        _undoPieces = new Stack<>();
-        _undoSquares = new Stack<>();
-        _undoJumps = new Stack<>();
-        incrPieces(BLUE, board0.bluePieces());
-        incrPieces(RED, board0.redPieces());
-        setNotifier(NOP);
+        _numMoves = 0;
     }
 
     /** Return the linearized index of square COL ROW. */
@@ -84,30 +104,30 @@ class Board {
         return sq + dc + dr * EXTENDED_SIDE;
     }
 
+    /** Return a bound on the number of moves left in a game with EMPTIES
+     *  empty squares.  Only extends fill squares, so there are at most
+     *  EMPTIES more extends, and at most JUMP_LIMIT jumps before each of
+     *  them and after the last; each extend or jump may be preceded by a
+     *  pass. */
+    static int maxMoves(int empties) {
+        return (empties + 1) * 2 * (JUMP_LIMIT + 1);
+    }
+
     /** Clear me to my starting state, with pieces in their initial
      *  positions and no blocks. */
     void clear() {
         _whoseMove = RED;
         _numJumps = 0;
-        _totalOpen = startTotalopen;
-        _numPieces = new int[BLUE.ordinal() + 1];
+        _key = 0;
         _winner = null;
-        _allMoves = new ArrayList<>();
-        _undoPieces = new Stack<>();
-        _undoSquares = new Stack<>();
-        _undoJumps = new Stack<>();
-        incrPieces(RED, 2);
-        incrPieces(BLUE, 2);
-        for (int i = 0; i < 7; i++) {
-            for (int j = 0; j < 7; j++) {
-                _board[index((char) ('a' + i), (char) ('1' + j))] = EMPTY;
-            }
-
-        }
-        _board[index('a', '1')] = BLUE;
-        _board[index('g', '7')] = BLUE;
-        _board[index('a', '7')] = RED;
-        _board[index('g', '1')] = RED;
+        _numMoves = 0;
+        _blocked = 0;
+        _red = _blue = 0;
+        unrecordedSet('a', '1', BLUE);
+        unrecordedSet('g', '7', BLUE);
+        unrecordedSet('a', '7', RED);
+        unrecordedSet('g', '1', RED);
+        updateMobility();
 
         announce();
     }
@@ -132,49 +152,79 @@ class Board {
 
     /** Return number of COLOR pieces on the board. */
     int numPieces(PieceColor color) {
-        return _numPieces[color.ordinal()];
+        return Squares.count(pieces(color));
+    }
+
+    /** Return the set of squares holding COLOR pieces, as a bitboard (see
+     *  Squares).  COLOR must be RED or BLUE. */
+    long pieces(PieceColor color) {
+        return color == RED ? _red : _blue;
+    }
+
+    /** Return the set of blocked squares, as a bitboard. */
+    long blocks() {
+        return _blocked;
     }
 
-    /** Increment numPieces(COLOR) by K. */
-    private void incrPieces(PieceColor color, int k) {
-        _numPieces[color.ordinal()] += k;
+    /** Return the set of empty squares, as a bitboard. */
+    long empties() {
+        return Squares.ALL & ~(_red | _blue | _blocked);
     }
 
     /** The current contents of square CR, where 'a'-2 <= C <= 'g'+2, and
      *  '1'-2 <= R <= '7'+2.  Squares outside the range a1-g7 are all
      *  BLOCKED.  Returns the same value as get(index(C, R)). */
     PieceColor get(char c, char r) {
-        return _board[index(c, r)];
+        return get(index(c, r));
     }
 
     /** Return the current contents of square with linearized index SQ. */
     PieceColor get(int sq) {
-        return _board[sq];
-    }
-
-    /** Set get(C, R) to V, where 'a' <= C <= 'g', and
-     *  '1' <= R <= '7'. This operation is undoable. */
-    private void set(char c, char r, PieceColor v) {
-        set(index(c, r), v);
-    }
-
-    /** Set square with linearized index SQ to V.  This operation is
-     *  undoable. */
-    private void set(int sq, PieceColor v) {
-        addUndo(sq);
-        _board[sq] = v;
+        int bit = Squares.bit(sq);
+        if (bit < 0) {
+            return BLOCKED;
+        }
+        long mask = 1L << bit;
+        if ((_red & mask) != 0) {
+            return RED;
+        } else if ((_blue & mask) != 0) {
+            return BLUE;
+        } else if ((_blocked & mask) != 0) {
+            return BLOCKED;
+        } else {
+            return EMPTY;
+        }
     }
 
     /** Set square at C R to V (not undoable). This is used for changing
-     * contents of the board without updating the undo stacks. */
+     * contents of the board without updating the undo journal. */
     private void unrecordedSet(char c, char r, PieceColor v) {
-        _board[index(c, r)] = v;
+        unrecordedSet(index(c, r), v);
     }
 
     /** Set square at linearized index SQ to V (not undoable). This is used
-     * for changing contents of the board without updating the undo stacks. */
+     * for changing contents of the board without updating the undo
+     * journal. */
     private void unrecordedSet(int sq, PieceColor v) {
-        _board[sq] = v;
+        int bit = Squares.bit(sq);
+        long mask = 1L << bit;
+        _key ^= Zobrist.square(get(sq), bit) ^ Zobrist.square(v, bit);
+        _red &= ~mask;
+        _blue &= ~mask;
+        _blocked &= ~mask;
+        switch (v) {
+        case RED:
+            _red |= mask;
+            break;
+        case BLUE:
+            _blue |= mask;
+            break;
+        case BLOCKED:
+            _blocked |= mask;
+            break;
+        default:
+            break;
+        }
     }
 
     /** Return true iff MOVE is legal on the current board. */
@@ -185,14 +235,11 @@ class Board {
         if (move.isPass()) {
             return !canMove(_whoseMove);
         }
-        if (get(move.col0(), move.row0()) == _whoseMove) {
-            if (move.isJump() || move.isExtend()) {
-                if (_board[move.toIndex()] == EMPTY) {
-                    return true;
-                }
-            }
-        }
-        return false;
+        int from = Squares.bit(move.fromIndex()),
+            to = Squares.bit(move.toIndex());
+        return from >= 0 && to >= 0
+            && (pieces(_whoseMove) & (1L << from)) != 0
+            && (empties() & (1L << to)) != 0;
     }
 
     /** Return true iff C0 R0 - C1 R1 is legal on the current board. */
@@ -203,21 +250,110 @@ class Board {
     /** Return true iff player WHO can move, ignoring whether it is
      *  that player's move and whether the game is over. */
     boolean canMove(PieceColor who) {
-        for (int i = 0; i < 7; i++) {
-            for (int j = 0; j < 7; j++) {
-                if (get((char) ('a' + i), (char) ('1' + j)) == who) {
-                    for (int x = -2; x <= 2; x++) {
-                        for (int y = -2; y <= 2; y++) {
-                            if (get((char) (('a' + i) + x),
-                                    (char) (('1' + j) + y)) == EMPTY) {
-                                return true;
-                            }
-                        }
-                    }
+        return frontier(who) != 0;
+    }
+
+    /** Return the set of empty squares that some piece of color WHO could
+     *  move to (by extending or jumping), as a bitboard. */
+    long frontier(PieceColor who) {
+        return who == RED ? _redFrontier : _blueFrontier;
+    }
+
+    /** Recompute the frontiers of both players after a change to the
+     *  bitboards.  This takes a fixed number of shifts (see
+     *  Squares.reach(long)), independent of the number of pieces. */
+    private void updateMobility() {
+        long empty = empties();
+        _redFrontier = Squares.reach(_red) & empty;
+        _blueFrontier = Squares.reach(_blue) & empty;
+    }
+
+    /** Store the legal moves for whoseMove() in packed form (see
+     *  Move.pack) in MOVES[START], MOVES[START + 1], ..., and return the
+     *  index just past the last one stored.  Extends onto the same square
+     *  are stored once, as a canonical clone.  Otherwise the same as
+     *  legalMoves(MOVES, START, false). */
+    int legalMoves(int[] moves, int start) {
+        return legalMoves(moves, start, true);
+    }
+
+    /** Store the legal moves for whoseMove() in packed form (see
+     *  Move.pack) in MOVES[START], MOVES[START + 1], ..., and return the
+     *  index just past the last one stored.  If MERGECLONES, all extends
+     *  onto a given square are represented by one canonical clone (see
+     *  Move.packClone); otherwise there is one extend per source.
+     *  Stores a single pass if whoseMove() has no other move.  Extends
+     *  come before jumps.  There must be room for MAX_LEGAL_MOVES moves.
+     *  Does no allocation. */
+    int legalMoves(int[] moves, int start, boolean mergeClones) {
+        long from = pieces(_whoseMove);
+        long empty = empties();
+        int n = start;
+        if (mergeClones) {
+            for (long to = Squares.clones(from) & empty; to != 0;
+                 to &= to - 1) {
+                moves[n++] = Move.packClone(Squares.first(to));
+            }
+        } else {
+            for (long p = from; p != 0; p &= p - 1) {
+                int sq = Squares.first(p);
+                for (long to = Squares.clones(sq) & empty; to != 0;
+                     to &= to - 1) {
+                    moves[n++] = Move.pack(sq, Squares.first(to), false);
                 }
             }
         }
-        return false;
+        for (long p = from; p != 0; p &= p - 1) {
+            int sq = Squares.first(p);
+            for (long to = Squares.jumps(sq) & empty; to != 0;
+                 to &= to - 1) {
+                moves[n++] = Move.pack(sq, Squares.first(to), true);
+            }
+        }
+        if (n == start) {
+            moves[n++] = Move.PACKED_PASS;
+        }
+        return n;
+    }
+
+    /** Store the legal moves for whoseMove() that capture at least
+     *  THRESHOLD (> 0) pieces in packed form in MOVES[START], ..., as for
+     *  legalMoves(MOVES, START), and return the index just past the last
+     *  one stored.  There is never a pass.  Does no allocation. */
+    int captureMoves(int[] moves, int start, int threshold) {
+        long from = pieces(_whoseMove);
+        long enemy = pieces(_whoseMove.opposite());
+        int n = start;
+        for (long to = Squares.reach(from) & empties(); to != 0;
+             to &= to - 1) {
+            int sq = Squares.first(to);
+            if (Squares.count(Squares.clones(sq) & enemy) < threshold) {
+                continue;
+            }
+            if ((Squares.clones(sq) & from) != 0) {
+                moves[n++] = Move.packClone(sq);
+            }
+            for (long p = Squares.jumps(sq) & from; p != 0; p &= p - 1) {
+                moves[n++] = Move.pack(Squares.first(p), sq, true);
+            }
+        }
+        return n;
+    }
+
+    /** Return the Move denoted by the packed move MOVE in the current
+     *  position.  For a canonical clone, this is an extend from one of
+     *  the pieces of whoseMove() adjacent to its to square (or null if
+     *  there is none). */
+    Move toMove(int move) {
+        if (!Move.isCanonicalClone(move)) {
+            return Move.unpack(move);
+        }
+        int to = Move.to(move);
+        long sources = Squares.clones(to) & pieces(_whoseMove);
+        if (sources == 0) {
+            return null;
+        }
+        return Move.unpack(Move.pack(Squares.first(sources), to, false));
     }
 
     /** Return the color of the player who has the next move.  The
@@ -229,7 +365,27 @@ class Board {
     /** Return total number of moves and passes since the last
      *  clear or the creation of the board. */
     int numMoves() {
-        return  _allMoves.size();
+        return _numMoves;
+    }
+
+    /** Return a 64-bit Zobrist key for the current position (see
+     *  Zobrist), covering the contents of the squares, the side to move,
+     *  and numJumps().  Equal positions have equal keys. The key is
+     *  maintained incrementally as moves are made and undone. */
+    long key() {
+        return _key;
+    }
+
+    /** Set whoseMove() to WHO, updating key(). */
+    private void setWhoseMove(PieceColor who) {
+        _key ^= Zobrist.side(_whoseMove) ^ Zobrist.side(who);
+        _whoseMove = who;
+    }
+
+    /** Set numJumps() to N, updating key(). */
+    private void setNumJumps(int n) {
+        _key ^= Zobrist.jumps(_numJumps) ^ Zobrist.jumps(n);
+        _numJumps = n;
     }
 
     /** Return number of non-pass moves made in the current game since the
@@ -260,6 +416,12 @@ class Board {
         }
     }
 
+    /** Make the move whose packed form (see Move.pack) is MOVE,
+     *  assuming it is legal.  MOVE may be a canonical clone. */
+    void makeMove(int move) {
+        makeMove(toMove(move));
+    }
+
     /** Make the MOVE on this Board, assuming it is legal. */
     void makeMove(Move move) {
         if (!legalMove(move)) {
@@ -269,139 +431,168 @@ class Board {
             pass();
             return;
         }
-        _allMoves.add(move);
-        startUndo();
-        PieceColor opponent = _whoseMove.opposite();
-        if (move.isJump()) {
-            set(move.col0(), move.row0(), EMPTY);
-            set(move.col1(), move.row1(), _whoseMove);
-            for (int i = -1; i <= 1; i++) {
-                for (int j = -1; j <= 1; j++) {
-                    if (get(neighbor(index(move.col1(),
-                            move.row1()), i, j)) == opponent) {
-                        set(neighbor(index(move.col1(),
-                                move.row1()), i, j), _whoseMove);
-                        incrPieces(_whoseMove, 1);
-                        incrPieces(opponent, -1);
-                    }
-                }
-            } _numJumps++;
-        }
-        if (move.isExtend()) {
-            _numJumps = 0;
-            _totalOpen--;
-            incrPieces(_whoseMove, 1);
-            set(move.col1(), move.row1(), _whoseMove);
-            for (int i = -1; i <= 1; i++) {
-                for (int j = -1; j <= 1; j++) {
-                    if (get(neighbor(index(move.col1(),
-                            move.row1()), i, j)) == opponent) {
-                        set(neighbor(index(move.col1(),
-                                move.row1()), i, j), _whoseMove);
-                        incrPieces(_whoseMove, 1);
-                        incrPieces(opponent, -1);
-                    }
-                }
-            }
-        }
+        apply(move.packed());
         updateWinner();
-        _whoseMove = opponent;
+        setWhoseMove(_whoseMove.opposite());
         announce();
     }
-    /** Helper function for makeMove, updates if there is a winner. */
 
-    void updateWinner() {
-        if (numPieces(RED) == 0 || numPieces(BLUE) == 0) {
-            int winner = Math.max(numPieces(RED), numPieces(BLUE));
-            if (winner == numPieces(RED)) {
-                _winner = RED;
-            } else {
-                _winner = BLUE;
+    /** Make the packed move MOVE (possibly a canonical clone or a pass)
+     *  for whoseMove(), trusting that it is legal.  This is the fast path
+     *  for searches: unlike makeMove, it does not check legality, does
+     *  not notify, and does not update getWinner(), which keeps the value
+     *  it had before the search began.  Searches should use
+     *  computeWinner instead.  Undo with undoUnchecked. */
+    void makeMoveUnchecked(int move) {
+        if (Move.isPass(move)) {
+            startUndo(move, 0);
+        } else {
+            if (Move.isCanonicalClone(move)) {
+                int to = Move.to(move);
+                move = Move.pack(Squares.first(Squares.clones(to)
+                                               & pieces(_whoseMove)),
+                                 to, false);
             }
+            apply(move);
         }
-        if (_numJumps == JUMP_LIMIT) {
-            if (numPieces(RED) == numPieces(BLUE)) {
-                _winner = EMPTY;
-            } else if (Math.max(numPieces(RED),
-                    numPieces(BLUE)) == numPieces(RED)) {
-                _winner = RED;
-            } else {
-                _winner = BLUE;
-            }
+        setWhoseMove(_whoseMove.opposite());
+    }
+
+    /** Make the changes to the board, other than to whoseMove(), for the
+     *  packed move MOVE by whoseMove(), which is neither a pass nor a
+     *  canonical clone, and record them in the undo journal. */
+    private void apply(int move) {
+        PieceColor mover = _whoseMove;
+        int to = Move.to(move);
+        long captured = Squares.clones(to) & pieces(mover.opposite());
+        startUndo(move, captured);
+        long key = Zobrist.square(mover, to);
+        for (long c = captured; c != 0; c &= c - 1) {
+            key ^= Zobrist.flip(Squares.first(c));
         }
-        if (_totalOpen == 0) {
-            if (numPieces(RED) == numPieces(BLUE)) {
-                _winner = EMPTY;
-            } else if (Math.max(numPieces(RED),
-                    numPieces(BLUE)) == numPieces(RED)) {
-                _winner = RED;
-            } else {
-                _winner = BLUE;
-            }
+        if (Move.isJump(move)) {
+            key ^= Zobrist.square(mover, Move.from(move));
+            setNumJumps(_numJumps + 1);
+        } else {
+            setNumJumps(0);
         }
-        if (!canMove(RED) && !canMove(BLUE)) {
-            if (numPieces(RED) == numPieces(BLUE)) {
-                _winner = EMPTY;
-            } else if (Math.max(numPieces(RED),
-                    numPieces(BLUE)) == numPieces(RED)) {
-                _winner = RED;
+        _key ^= key;
+        toggle(move, mover, captured);
+    }
+
+    /** Return the number of pieces that the packed move MOVE, which must
+     *  be legal, would capture for the player to move.  A pass captures
+     *  none. */
+    int captures(int move) {
+        if (Move.isPass(move)) {
+            return 0;
+        }
+        return Squares.count(Squares.clones(Move.to(move))
+                             & pieces(_whoseMove.opposite()));
+    }
+
+    /** Return the result of the game in the current position: the
+     *  winner, EMPTY for a draw, or null if the game is not over.  The
+     *  game is over when one side has no pieces, after JUMP_LIMIT
+     *  consecutive jumps, or when neither side can move (which includes
+     *  the case of a full board).  Takes constant time. */
+    PieceColor computeWinner() {
+        int red = redPieces(), blue = bluePieces();
+        if (red == 0 || blue == 0 || _numJumps >= JUMP_LIMIT
+            || (_redFrontier == 0 && _blueFrontier == 0)) {
+            if (red == blue) {
+                return EMPTY;
+            } else if (red > blue) {
+                return RED;
             } else {
-                _winner = BLUE;
+                return BLUE;
             }
         }
+        return null;
+    }
 
+    /** Helper function for makeMove, updates if there is a winner. */
+    void updateWinner() {
+        PieceColor winner = computeWinner();
+        if (winner != null) {
+            _winner = winner;
+        }
     }
 
     /** Update to indicate that the current player passes, assuming it
      *  is legal to do so. Passing is undoable. */
     void pass() {
         assert !canMove(_whoseMove);
-        _allMoves.add(Move.pass());
-        startUndo();
-        _whoseMove = _whoseMove.opposite();
+        startUndo(Move.PACKED_PASS, 0);
+        setWhoseMove(_whoseMove.opposite());
         announce();
     }
 
     /** Undo the last move. */
     void undo() {
-        PieceColor color = _undoPieces.pop();
-        Integer index = _undoSquares.pop();
-        Integer jump = _undoJumps.pop();
-        while (!(index == null) && !(color == null)) {
-            incrPieces(get(index), -1);
-            unrecordedSet(index, color);
-            incrPieces(color, 1);
-            index = _undoSquares.pop();
-            color = _undoPieces.pop();
-            if (_allMoves.get(_allMoves.size() - 1).isExtend()) {
-                _totalOpen++;
-            }
+        if (_numMoves == 0) {
+            throw error("no move to undo");
         }
-        _numJumps = jump;
-        _whoseMove = _whoseMove.opposite();
-        _allMoves.remove(_allMoves.size() - 1);
-        _winner = null;
+        undoUnchecked();
         announce();
     }
 
-    /** Indicate beginning of a move in the undo stack. See the
-     * _undoSquares and _undoPieces instance variable comments for
-     * details on how the beginning of moves are marked. */
-    private void startUndo() {
-        _undoSquares.push(null);
-        _undoPieces.push(null);
-        _undoJumps.push(_numJumps);
-    }
-
-    /** Add an undo action for changing SQ on current board. */
-    private void addUndo(int sq) {
-        _undoSquares.push(sq);
-        _undoPieces.push(get(sq));
+    /** Undo the last move, which must exist, without notifying.  This
+     *  is the counterpart of makeMoveUnchecked. */
+    void undoUnchecked() {
+        _numMoves -= 1;
+        int move = _undoMoves[_numMoves];
+        PieceColor mover = _whoseMove.opposite();
+        if (!Move.isPass(move)) {
+            toggle(move, mover, _undoCaptures[_numMoves]);
+        }
+        _whoseMove = mover;
+        _numJumps = _undoJumps[_numMoves];
+        _winner = _undoWinners[_numMoves];
+        _key = _undoKeys[_numMoves];
+    }
+
+    /** Apply the changes to the bitboards made by packed MOVE by MOVER,
+     *  which captures the squares in CAPTURED, or (since the changes are
+     *  all exclusive ors) undo them. */
+    private void toggle(int move, PieceColor mover, long captured) {
+        long changed = (1L << Move.to(move)) | captured;
+        if (Move.isJump(move)) {
+            changed |= 1L << Move.from(move);
+        }
+        if (mover == RED) {
+            _red ^= changed;
+            _blue ^= captured;
+        } else {
+            _blue ^= changed;
+            _red ^= captured;
+        }
+        updateMobility();
+    }
+
+    /** Record the start of packed MOVE, which will capture the squares in
+     *  CAPTURED, in the undo journal, together with the parts of the
+     *  current state that undo cannot recompute. */
+    private void startUndo(int move, long captured) {
+        if (_numMoves == _undoMoves.length) {
+            int size = 2 * _numMoves;
+            _undoMoves = Arrays.copyOf(_undoMoves, size);
+            _undoCaptures = Arrays.copyOf(_undoCaptures, size);
+            _undoKeys = Arrays.copyOf(_undoKeys, size);
+            _undoJumps = Arrays.copyOf(_undoJumps, size);
+            _undoWinners = Arrays.copyOf(_undoWinners, size);
+        }
+        _undoMoves[_numMoves] = move;
+        _undoCaptures[_numMoves] = captured;
+        _undoKeys[_numMoves] = _key;
+        _undoJumps[_numMoves] = _numJumps;
+        _undoWinners[_numMoves] = _winner;
+        _numMoves += 1;
     }
 
     /** Return true iff it is legal to place a block at C R. */
     boolean legalBlock(char c, char r) {
-        if (_board[index(c, r)] == EMPTY && numMoves() == 0) {
+        if (get(c, r) == EMPTY && numMoves() == 0) {
             return true;
         }
         return false;
@@ -421,30 +612,16 @@ class Board {
         if (!legalBlock(c, r)) {
             throw error("illegal block placement");
         }
+        char c1 = (char) ('g' - (c - 'a')),
+            r1 = (char) ('7' - (r - '1'));
+        unrecordedSet(c, r, BLOCKED);
+        unrecordedSet(c1, r, BLOCKED);
+        unrecordedSet(c, r1, BLOCKED);
+        unrecordedSet(c1, r1, BLOCKED);
+        updateMobility();
         if (!canMove(RED) && !canMove(BLUE)) {
             _winner = EMPTY;
         }
-        if (c == 'd' && r == '4') {
-            _totalOpen--;
-        } else if (c == 'd' && r != '4') {
-            _totalOpen = _totalOpen - 2;
-        } else if (c != 'd' && r == '4') {
-            _totalOpen = _totalOpen - 2;
-        } else {
-            _totalOpen = _totalOpen - 4;
-        }
-        set(c, r, BLOCKED);
-        char set0 = (char) ((int) ('a' - 1 + (c - 'a')
-                + (2 * (dis - (c - 'a')))));
-        set(set0, r, BLOCKED);
-        char set = (char) ((int) ('1' - 1 + (r - '1')
-                + (2 * (dis - (r - '1')))));
-        set(c, set, BLOCKED);
-        char set1 = (char) ((int) ('a' - 1 + (c - 'a')
-                + (2 * (dis - (c - 'a')))));
-        char set2 = (char) ((int) ('1' - 1 + (r - '1')
-                + (2 * (dis - (r - '1')))));
-        set(set1, set2, BLOCKED);
         announce();
     }
 
@@ -455,14 +632,17 @@ class Board {
 
     /** Return total number of unblocked squares. */
     int totalOpen() {
-        return _totalOpen;
+        return Squares.count(empties());
     }
 
     /** Return a list of all moves made since the last clear (or start of
      *  game). */
     List<Move> allMoves() {
-        _allMoves = new ArrayList<Move>();
-        return _allMoves;
+        ArrayList<Move> moves = new ArrayList<>();
+        for (int k = 0; k < _numMoves; k += 1) {
+            moves.add(Move.unpack(_undoMoves[k]));
+        }
+        return moves;
     }
 
     @Override
@@ -476,12 +656,16 @@ class Board {
             return false;
         }
         Board other = (Board) obj;
-        return Arrays.equals(_board, other._board);
+        return _key == other._key
+            && _red == other._red && _blue == other._blue
+            && _blocked == other._blocked
+            && _whoseMove == other._whoseMove
+            && _numJumps == other._numJumps;
     }
 
     @Override
     public int hashCode() {
-        return Arrays.hashCode(_board);
+        return Long.hashCode(_key);
     }
 
     /** Return a text depiction of the board.  If LEGEND, supply row and
@@ -536,59 +720,54 @@ class Board {
     /** Use _notifier.accept(this) to announce changes to this board. */
     private Consumer<Board> _notifier;
 
-    /** For reasons of efficiency in copying the board,
-     *  we use a 1D array to represent it, using the usual access
-     *  algorithm: row r, column c => index(r, c).
-     *
-     *  Next, instead of using a 7x7 board, we use an 11x11 board in
-     *  which the outer two rows and columns are blocks, and
-     *  row 2, column 2 actually represents row 0, column 0
-     *  of the real board.  As a result of this trick, there is no
-     *  need to special-case being near the edge: we don't move
-     *  off the edge because it looks blocked.
-     *
-     *  Using characters as indices, it follows that if 'a' <= c <= 'g'
-     *  and '1' <= r <= '7', then row r, column c of the board corresponds
-     *  to _board[(c -'a' + 2) + 11 (r - '1' + 2) ]. */
-    private final PieceColor[] _board;
+    /** The contents of the board, as bitboards (see Squares): the squares
+     *  holding red pieces, blue pieces, and blocks.  All other playable
+     *  squares are empty.  The border squares of the extended board have
+     *  no bits; get reports them as BLOCKED, so that, as before, moves
+     *  off the edge look like moves onto a block. */
+    private long _red, _blue, _blocked;
 
     /** Player that is next to move. */
     private PieceColor _whoseMove;
 
+    /** Zobrist key of the current position.  Kept consistent with the
+     *  bitboards, _whoseMove, and _numJumps by unrecordedSet,
+     *  setWhoseMove, and setNumJumps, which are the only places that
+     *  modify them once a position has been set up. */
+    private long _key;
+
     /** Number of consecutive non-extending moves since the
      *  last clear or the beginning of the game. */
     private int _numJumps;
 
-    /** Total number of unblocked squares. */
-    private int _totalOpen;
-
-    /** Number of blue and red pieces, indexed by the ordinal positions of
-     *  enumerals BLUE and RED. */
-    private int[] _numPieces = new int[BLUE.ordinal() + 1];
+    /** The empty squares that red and blue pieces could move to.  These
+     *  are updated whenever the bitboards change, so that canMove and
+     *  the end-of-game test in updateWinner take constant time. */
+    private long _redFrontier, _blueFrontier;
 
     /** Set to winner when game ends (EMPTY if tie).  Otherwise is null. */
     private PieceColor _winner;
 
-    /** List of all (non-undone) moves since the last clear or beginning of
-     *  the game. */
-    private ArrayList<Move> _allMoves;
-
-    /* The undo stack. We keep a stack of squares that have changed and
-     * their previous contents.  Any given move may involve several such
-     * changes, so we mark the start of the changes for each move (including
-     * passes) with a null. */
-
-    /** Stack of linearized indices of squares that have been modified and
-     *  not undone. Nulls mark the beginnings of full moves. */
-    private Stack<Integer> _undoSquares;
-    /** Stack of pieces formally at corresponding squares in _UNDOSQUARES. */
-    private Stack<PieceColor> _undoPieces;
-    /** Stack of number of jumps from previous move. */
-    private Stack<Integer> _undoJumps;
-    /** Int number of open squares of a brand new game board before any
-     * blocks are set. */
-    private static int startTotalopen = 45;
-    /** Double number representing distance from axis of symmetry of board
-     *  used for reflection of blocks. */
-    private static double dis = 3.5;
+    /* The undo journal.  Entry k of each of the following arrays describes
+     * move number k (counting from 0) since the last clear, for k <
+     * _numMoves.  Since a move changes only its from and to squares and
+     * the captured squares, and the changes to the bitboards are
+     * reversible, one entry per move suffices to restore the position in
+     * constant time.  The arrays start with room for INITIAL_MOVES moves
+     * and double when full, so that making and undoing moves allocates
+     * only when a board reaches a new greatest number of moves. */
+
+    /** Number of moves (including passes) made and not undone. */
+    private int _numMoves;
+    /** Moves made (including passes), in packed form.  Canonical clones
+     *  are recorded as extends from a particular piece. */
+    private int[] _undoMoves = new int[INITIAL_MOVES];
+    /** Sets of squares captured by the corresponding moves. */
+    private long[] _undoCaptures = new long[INITIAL_MOVES];
+    /** Values of _key before the corresponding moves. */
+    private long[] _undoKeys = new long[INITIAL_MOVES];
+    /** Values of _numJumps before the corresponding moves. */
+    private int[] _undoJumps = new int[INITIAL_MOVES];
+    /** Values of _winner before the corresponding moves. */
+    private PieceColor[] _undoWinners = new PieceColor[INITIAL_MOVES];
 }
@@ -4,6 +4,10 @@
 
 package ataxx;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Random;
+
 import org.junit.Test;
 
 import static ataxx.PieceColor.*;
@@ -154,6 +158,208 @@ public class BoardTest {
                 b.legalBlock('d', '5'));
     }
 
+    @Test
+    public void testBitSets() {
+        Board b = new Board();
+        b.setBlock('b', '2');
+        assertEquals("wrong red set", 2, Long.bitCount(b.pieces(RED)));
+        assertEquals("wrong blocks", 4, Long.bitCount(b.blocks()));
+        assertEquals("wrong empties", b.totalOpen(),
+                Long.bitCount(b.empties()));
+        assertEquals("f6 not blocked", BLOCKED, b.get('f', '6'));
+        assertFalse("moving onto a block should not be legal",
+                b.legalMove('g', '1', 'f', '2'));
+        b.makeMove('g', '1', 'g', '3');
+        b.makeMove('g', '7', 'g', '5');
+        b.makeMove('g', '3', 'g', '4');
+        assertEquals("g5 not captured", RED, b.get('g', '5'));
+        assertEquals("g3 not red", RED, b.get('g', '3'));
+        assertEquals("wrong red pieces", 4, b.redPieces());
+        assertEquals("wrong blue pieces", 1, b.bluePieces());
+        assertEquals("wrong empties", b.totalOpen(),
+                Long.bitCount(b.empties()));
+        b.undo();
+        assertEquals("g5 not blue after undo", BLUE, b.get('g', '5'));
+        assertEquals("g4 not empty after undo", EMPTY, b.get('g', '4'));
+        assertEquals("wrong blue pieces after undo", 2, b.bluePieces());
+    }
+
+    @Test
+    public void testKey() {
+        Board b0 = new Board();
+        Board b1 = new Board();
+        long start = b0.key();
+        makeMoves(b0, new String[] { "a7-a6", "a1-a2", "g1-g2", "g7-g6" });
+        makeMoves(b1, new String[] { "g1-g2", "g7-g6", "a7-a6", "a1-a2" });
+        assertEquals("transposed positions have different keys",
+                b0.key(), b1.key());
+        assertEquals("transposed positions not equal", b0, b1);
+        assertEquals("copy has different key", b0.key(), new Board(b0).key());
+
+        b0.makeMove('a', '7', 'c', '7');
+        b0.undo();
+        assertEquals("undo did not restore key", b1.key(), b0.key());
+        for (int i = 0; i < 4; i += 1) {
+            b0.undo();
+        }
+        assertEquals("undo to start did not restore key", start, b0.key());
+
+        makeMoves(b0, new String[] { "a7-c7", "a1-c1", "c7-a7", "c1-a1" });
+        assertEquals("wrong numJumps", 4, b0.numJumps());
+        assertNotEquals("jump count not in key", start, b0.key());
+        assertNotEquals("jump count not compared", new Board(), b0);
+
+        Board b2 = new Board();
+        b2.setBlock('c', '3');
+        assertNotEquals("blocks not in key", start, b2.key());
+    }
+
+    /** Return all moves for B.whoseMove(), found by looking at every
+     *  square on B, as the original scan-based canMove did. */
+    private static ArrayList<Move> scanMoves(Board b) {
+        ArrayList<Move> moves = new ArrayList<>();
+        for (char c = 'a'; c <= 'g'; c += 1) {
+            for (char r = '1'; r <= '7'; r += 1) {
+                if (b.get(c, r) != b.whoseMove()) {
+                    continue;
+                }
+                for (int dc = -2; dc <= 2; dc += 1) {
+                    for (int dr = -2; dr <= 2; dr += 1) {
+                        char c1 = (char) (c + dc), r1 = (char) (r + dr);
+                        if (b.get(c1, r1) == EMPTY) {
+                            moves.add(Move.move(c, r, c1, r1));
+                        }
+                    }
+                }
+            }
+        }
+        return moves;
+    }
+
+    @Test
+    public void testMobility() {
+        Random random = new Random(61);
+        for (int game = 0; game < 40; game += 1) {
+            Board b = new Board();
+            if (game % 2 == 1) {
+                b.setBlock((char) ('b' + random.nextInt(3)),
+                        (char) ('2' + random.nextInt(3)));
+            }
+            while (b.getWinner() == null) {
+                ArrayList<Move> moves = scanMoves(b);
+                assertEquals("wrong canMove", !moves.isEmpty(),
+                        b.canMove(b.whoseMove()));
+                assertEquals("wrong pass legality", moves.isEmpty(),
+                        b.legalMove(Move.pass()));
+                if (moves.isEmpty()) {
+                    b.makeMove(Move.pass());
+                } else {
+                    b.makeMove(moves.get(random.nextInt(moves.size())));
+                }
+            }
+            b.undo();
+            assertNull("winner not cleared by undo", b.getWinner());
+            assertTrue("side to move cannot move after undo",
+                    b.canMove(b.whoseMove())
+                    || b.canMove(b.whoseMove().opposite()));
+        }
+    }
+
+    @Test
+    public void testMergedClones() {
+        Board b = new Board();
+        makeMoves(b, new String[] { "a7-a6", "a1-b1", "a6-b6" });
+        int[] moves = new int[Board.MAX_LEGAL_MOVES];
+        int all = b.legalMoves(moves, 0, false);
+        int merged = b.legalMoves(moves, 0, true);
+        assertEquals("wrong number of moves", 25, all);
+        assertEquals("wrong number of merged moves", 23, merged);
+        int clone = Move.packClone(Squares.bit('a', '2'));
+        assertEquals("wrong move for canonical clone", "a1-a2",
+                b.toMove(clone).toString());
+        Board b1 = new Board(b);
+        b.makeMove(clone);
+        b1.makeMove('b', '1', 'a', '2');
+        assertEquals("canonical clone gives wrong position", b1, b);
+    }
+
+    @Test
+    public void testCaptures() {
+        Board b = new Board();
+        makeMoves(b, new String[] { "a7-a5", "a1-a3", "g1-f2", "a3-b3" });
+        assertEquals("wrong captures", 2,
+                     b.captures(Move.packClone(Squares.bit('a', '4'))));
+        assertEquals("wrong captures", 1,
+                     b.captures(Move.pack(Squares.bit('a', '5'),
+                                          Squares.bit('c', '3'), true)));
+        assertEquals("wrong captures", 0,
+                     b.captures(Move.packClone(Squares.bit('g', '2'))));
+        assertEquals("pass captures", 0, b.captures(Move.PACKED_PASS));
+    }
+
+    @Test
+    public void testCaptureMoves() {
+        int[] all = new int[Board.MAX_LEGAL_MOVES];
+        int[] captures = new int[Board.MAX_LEGAL_MOVES];
+        for (int k = 0; k < 50; k += 1) {
+            Board b = SearcherTest.randomPosition(5 + k, k);
+            for (int threshold = 1; threshold <= 4; threshold += 1) {
+                HashSet<Integer> expected = new HashSet<>();
+                int n = b.legalMoves(all, 0);
+                for (int i = 0; i < n; i += 1) {
+                    if (b.captures(all[i]) >= threshold) {
+                        expected.add(all[i]);
+                    }
+                }
+                HashSet<Integer> found = new HashSet<>();
+                n = b.captureMoves(captures, 0, threshold);
+                for (int i = 0; i < n; i += 1) {
+                    found.add(captures[i]);
+                }
+                assertEquals("wrong capture moves", expected, found);
+                assertEquals("repeated capture moves", n, found.size());
+            }
+        }
+    }
+
+    @Test
+    public void testUnchecked() {
+        Random random = new Random(7);
+        int[] moves = new int[Board.MAX_LEGAL_MOVES];
+        int longest = 0;
+        for (int game = 0; game < 20; game += 1) {
+            Board checked = new Board(), fast = new Board();
+            int[] notices = new int[1];
+            fast.setNotifier((b) -> notices[0] += 1);
+            notices[0] = 0;
+            int n;
+            for (n = 0; checked.getWinner() == null; n += 1) {
+                assertNull("unchecked board reported a winner",
+                        fast.getWinner());
+                assertNull("premature end of game", fast.computeWinner());
+                int k = checked.legalMoves(moves, 0);
+                int move = moves[random.nextInt(k)];
+                checked.makeMove(move);
+                fast.makeMoveUnchecked(move);
+                assertEquals("unchecked move made wrong position",
+                        checked, fast);
+            }
+            assertEquals("wrong winner computed", checked.getWinner(),
+                    fast.computeWinner());
+            assertEquals("wrong number of moves", n, fast.numMoves());
+            longest = Math.max(longest, n);
+            assertTrue("game longer than bound",
+                    n <= Board.maxMoves(new Board().totalOpen()));
+            for (int i = 0; i < n; i += 1) {
+                fast.undoUnchecked();
+            }
+            assertEquals("unchecked undo failed", new Board(), fast);
+            assertEquals("unchecked moves notified", 0, notices[0]);
+        }
+        assertTrue("undo journal never grew",
+                longest > Board.INITIAL_MOVES);
+    }
+
     @Test
     public void testGame() {
         Board b = new Board();
@@ -258,10 +464,16 @@ public class BoardTest {
         Board b1 = new Board(b0);
         makeMoves(b0, GAME1);
         Board b2 = new Board(b0);
+        assertEquals("wrong number of moves recorded",
+                GAME1.length, b0.allMoves().size());
+        assertEquals("wrong first move recorded",
+                GAME1[0], b0.allMoves().get(0).toString());
         for (int i = 0; i < GAME1.length; i += 1) {
             b0.undo();
         }
         assertEquals("failed to return to start", b1, b0);
+        assertEquals("open squares not restored",
+                b1.totalOpen(), b0.totalOpen());
         makeMoves(b0, GAME1);
         assertEquals("second pass failed to reach same position", b2, b0);
 
@@ -17,8 +17,9 @@ class Command {
 
     /** A list of all commands. */
     private static final String[] COMMAND_NAMES = {
-        "auto", "block", "board", "dump", "help", "manual",
-        "new", "q", "quiet", "quit", "seed", "undo", "verbose",
+        "analyze", "auto", "block", "board", "dump", "eval", "help",
+        "manual", "new", "perft", "prune", "q", "quiesce", "quiet", "quit",
+        "seed", "threads", "undo", "verbose",
     };
 
     /** Command types.  PIECEMOVE indicates a move of the form
@@ -27,10 +28,16 @@ class Command {
      *  programmer writes. */
     enum Type {
         COMMENT("#.*|$"),
-        AUTO("auto\\s+(red|blue)"),
+        AUTO("auto\\s+(red|blue)((?:\\s+(?:minimax|mtdf|ybw|mcts|puct))?)"),
         BLOCK("block\\s+([a-g][1-7])"),
         MANUAL("manual\\s+(red|blue)"),
         SEED("seed\\s+(\\d+)"),
+        PERFT("perft\\s+(\\d+)((?:\\s+(?:divide|merged|parallel))*)"),
+        THREADS("threads\\s+(\\d+)"),
+        ANALYZE("analyze\\s+(on|off)"),
+        QUIESCE("quiesce\\s+(\\d+)"),
+        PRUNE("prune\\s+(lmr|futility|probcut)\\s+(on|off)"),
+        EVAL("eval\\s+(material|positional|nnue|patterns)"),
         START,
         /* Regular moves. */
         PIECEMOVE("(-|[a-g][1-7]-[a-g][1-7])"),
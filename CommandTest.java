@@ -31,8 +31,13 @@ public class CommandTest {
     }
 
     @Test public void testAUTO() {
-        check("auto red", AUTO, "red");
-        check("auto blue", AUTO, "blue");
+        check("auto red", AUTO, "red", "");
+        check("auto blue", AUTO, "blue", "");
+        check("auto blue  ybw", AUTO, "blue", "  ybw");
+        check("auto red minimax", AUTO, "red", " minimax");
+        check("auto red mtdf", AUTO, "red", " mtdf");
+        check("auto blue mcts", AUTO, "blue", " mcts");
+        check("auto blue puct", AUTO, "blue", " puct");
         checkError("auto green");
         checkError("auto");
         checkError("auto red foo");
@@ -50,6 +55,49 @@ public class CommandTest {
         checkError("seed 142 foo");
     }
 
+    @Test public void testPERFT() {
+        check("perft 4", PERFT, "4", "");
+        check("perft 5 divide parallel", PERFT, "5", " divide parallel");
+        checkError("perft");
+        checkError("perft 3 fast");
+    }
+
+    @Test public void testTHREADS() {
+        check("threads 8", THREADS, "8");
+        checkError("threads");
+        checkError("threads x");
+    }
+
+    @Test public void testANALYZE() {
+        check("analyze on", ANALYZE, "on");
+        check("analyze  off", ANALYZE, "off");
+        checkError("analyze");
+        checkError("analyze yes");
+    }
+
+    @Test public void testPRUNE() {
+        check("prune lmr on", PRUNE, "lmr", "on");
+        check("prune probcut  off", PRUNE, "probcut", "off");
+        checkError("prune");
+        checkError("prune lmr");
+        checkError("prune nmp on");
+    }
+
+    @Test public void testQUIESCE() {
+        check("quiesce 3", QUIESCE, "3");
+        checkError("quiesce");
+        checkError("quiesce on");
+    }
+
+    @Test public void testEVAL() {
+        check("eval material", EVAL, "material");
+        check("eval  positional", EVAL, "positional");
+        check("eval nnue", EVAL, "nnue");
+        check("eval patterns", EVAL, "patterns");
+        checkError("eval");
+        checkError("eval pieces");
+    }
+
     @Test public void testSTART() {
         check("start", START);
         checkError("start foo");
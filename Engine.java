@@ -0,0 +1,69 @@
+/* Skeleton code copyright (C) 2008, 2022 Paul N. Hilfinger and the
+ * Regents of the University of California.  Do not distribute this or any
+ * derivative work without permission. */
+
+package ataxx;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/** A game-tree search that an AI can use to choose its moves.  Values
+ *  are from red's point of view, as for Searcher.staticScore.
+ *  @author J. Masoudi
+ */
+interface Engine {
+
+    /** Return a best move for the player to move on BOARD, searching
+     *  DEPTH plies, where 1 <= DEPTH <= Searcher.MAX_PLY.  The game must
+     *  not be over (otherwise returns null).  BOARD is used as scratch
+     *  space and is restored before returning. */
+    Move findMove(Board board, int depth);
+
+    /** Return a best move for the player to move on BOARD, searching to
+     *  at most MAXDEPTH plies in about SOFTLIMIT milliseconds and no more
+     *  than HARDLIMIT milliseconds (see Searcher.findMove).  The game
+     *  must not be over (otherwise returns null).  BOARD is used as
+     *  scratch space and is restored before returning. */
+    Move findMove(Board board, int maxDepth, long softLimit, long hardLimit);
+
+    /** Return the value found by the last findMove. */
+    int value();
+
+    /** Return the depth of the deepest search completed by the last
+     *  findMove. */
+    int depth();
+
+    /** Return the number of positions visited by the last findMove. */
+    long nodes();
+
+    /** Use THREADS threads (at least 1) to search. */
+    void setThreads(int threads);
+
+    /** Use the selective search techniques TECHNIQUES, a union of
+     *  Searcher.LMR, Searcher.FUTILITY, and Searcher.PROBCUT, where
+     *  supported. */
+    void setPruning(int techniques);
+
+    /** Extend searches at their leaves with quiescence searches of moves
+     *  that capture at least THRESHOLD pieces, or with none if THRESHOLD
+     *  is 0, where supported. */
+    void setQuiescence(int threshold);
+
+    /** Evaluate the leaves of searches with EVALUATOR, where
+     *  supported. */
+    void setEvaluator(Evaluator evaluator);
+
+    /** Return a one-line summary of the statistics of the last
+     *  findMove. */
+    String statistics();
+
+    /** Return the principal variation (the line of best play found) of
+     *  the last completed search, starting with the move it chose. */
+    List<Move> principalVariation();
+
+    /** Call NOTIFY with this engine after each completed iteration of a
+     *  timed findMove, while the board it searches is at its starting
+     *  position. */
+    void setNotifier(Consumer<Engine> notify);
+
+}
@@ -0,0 +1,85 @@
+/* Skeleton code copyright (C) 2008, 2022 Paul N. Hilfinger and the
+ * Regents of the University of California.  Do not distribute this or any
+ * derivative work without permission. */
+
+package ataxx;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/** A fixed-size cache of the values of an Evaluator, indexed by Zobrist
+ *  key (see Board.key), used by Searcher to avoid evaluating the same
+ *  leaf again in later iterations and sibling subtrees.
+ *
+ *  The cache is direct-mapped: a power-of-two array of longs, each entry
+ *  holding the high 32 bits of its position's key and, in its low 32
+ *  bits, the value.  The low bits of the key choose the entry, so that a
+ *  probe compares 32 bits of the key beyond those used to index.  A store
+ *  always replaces the entry.
+ *
+ *  Several threads may probe and store at once without locking.  Entries
+ *  are read and written with opaque access, which, unlike plain access to
+ *  a long, is atomic (JLS 17.7 allows a plain long to be written in two
+ *  halves), so that a probe never sees the key of one store with the
+ *  value of another.  Opaque access imposes no ordering, and costs no
+ *  more than plain access on common processors.  As for the transposition
+ *  table, probing and storing keep no counts of their own; searchers
+ *  count for themselves.  The values cached are only valid for one
+ *  evaluator, so the cache must be cleared when that changes.
+ *  @author J. Masoudi
+ */
+class EvalCache {
+
+    /** Returned by probe for a position not in the cache. */
+    static final int MISS = Integer.MIN_VALUE;
+
+    /** A new, empty cache occupying at most MEGABYTES megabytes (but at
+     *  least one entry). */
+    EvalCache(int megabytes) {
+        long entries = Long.highestOneBit(
+            Math.max(1, ((long) megabytes << 20) / Long.BYTES));
+        entries = Math.min(entries, 1 << 30);
+        _mask = (int) entries - 1;
+        _entries = new AtomicLongArray((int) entries);
+        clear();
+    }
+
+    /** Return the number of megabytes I occupy. */
+    int megabytes() {
+        return (int) (((long) _entries.length() * Long.BYTES) >> 20);
+    }
+
+    /** Remove all entries. */
+    void clear() {
+        for (int i = 0; i < _entries.length(); i += 1) {
+            _entries.setOpaque(i, EMPTY);
+        }
+    }
+
+    /** Return the value stored for the position with key KEY, or MISS if
+     *  there is none. */
+    int probe(long key) {
+        long entry = _entries.getOpaque((int) key & _mask);
+        if ((entry & KEY_MASK) == (key & KEY_MASK)) {
+            return (int) entry;
+        }
+        return MISS;
+    }
+
+    /** Store VALUE (not MISS) for the position with key KEY. */
+    void store(long key, int value) {
+        _entries.setOpaque((int) key & _mask,
+                           (key & KEY_MASK) | (value & 0xffffffffL));
+    }
+
+    /** The part of a key stored in an entry. */
+    private static final long KEY_MASK = 0xffffffff00000000L;
+
+    /** An empty entry.  Its value is MISS, so that it gives MISS even
+     *  for keys it matches. */
+    private static final long EMPTY = MISS & 0xffffffffL;
+
+    /** Mask giving the entry number from a key. */
+    private final int _mask;
+    /** The entries. */
+    private final AtomicLongArray _entries;
+}
@@ -0,0 +1,38 @@
+/* Skeleton code copyright (C) 2008, 2022 Paul N. Hilfinger and the
+ * Regents of the University of California.  Do not distribute this or any
+ * derivative work without permission. */
+
+package ataxx;
+
+import org.junit.Test;
+
+import static ataxx.EvalCache.*;
+import static org.junit.Assert.*;
+
+/** Tests of the EvalCache class.
+ *  @author J. Masoudi
+ */
+public class EvalCacheTest {
+
+    @Test
+    public void testStore() {
+        EvalCache cache = new EvalCache(1);
+        assertEquals("cache too large", 1, cache.megabytes());
+        long key = 0x123456789abcdefL;
+        assertEquals("found missing entry", MISS, cache.probe(key));
+        assertEquals("found missing entry", MISS, cache.probe(0));
+        cache.store(key, -17);
+        assertEquals("wrong value", -17, cache.probe(key));
+        cache.store(0, 0);
+        assertEquals("wrong value", 0, cache.probe(0));
+        assertEquals("found missing entry", MISS,
+                     cache.probe(key + (1L << 40)));
+        cache.store(key + (1L << 40), 3);
+        assertEquals("entry not replaced", MISS, cache.probe(key));
+        assertEquals("wrong value", 3, cache.probe(key + (1L << 40)));
+        cache.clear();
+        assertEquals("entry not cleared", MISS,
+                     cache.probe(key + (1L << 40)));
+    }
+
+}
@@ -0,0 +1,28 @@
+/* Skeleton code copyright (C) 2008, 2022 Paul N. Hilfinger and the
+ * Regents of the University of California.  Do not distribute this or any
+ * derivative work without permission. */
+
+package ataxx;
+
+/** A static evaluation function for the leaves of a search.
+ *  @author J. Masoudi
+ */
+interface Evaluator {
+
+    /** Return a heuristic value of BOARD, whose game is not over, from
+     *  red's point of view, in units of about one piece.  May be called
+     *  by several threads at once. */
+    int evaluate(Board board);
+
+    /** Return true iff my evaluations cost enough that searches should
+     *  keep them in an evaluation cache (see EvalCache).  False by
+     *  default: a probe that misses the processor's caches costs about
+     *  as much as a cheap evaluation. */
+    default boolean worthCaching() {
+        return false;
+    }
+
+    /** The evaluation by material alone: red's pieces minus blue's. */
+    Evaluator MATERIAL = (board) -> board.redPieces() - board.bluePieces();
+
+}
@@ -7,6 +7,7 @@ package ataxx;
 import ucb.gui2.TopLevel;
 import ucb.gui2.LayoutSpec;
 
+import java.util.List;
 import java.util.concurrent.ArrayBlockingQueue;
 
 import java.io.InputStream;
@@ -144,6 +145,16 @@ class GUI extends TopLevel implements View, CommandSource, Reporter {
     public void announceMove(Move move, PieceColor player) {
     }
 
+    @Override
+    public void announcePV(PieceColor player, int depth, int value,
+                           List<Move> pv) {
+    }
+
+    @Override
+    public void announceSolved(PieceColor player, int value, boolean exact,
+                               List<Move> pv) {
+    }
+
     @Override
     public void msg(String format, Object... args) {
         showMessage(String.format(format, args), "Message", "information");
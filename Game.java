@@ -4,6 +4,8 @@
 
 package ataxx;
 
+import java.util.List;
+
 import static ataxx.PieceColor.*;
 import static ataxx.GameException.error;
 import static ataxx.Utils.*;
@@ -16,6 +18,16 @@ class Game {
     /** Name of resource containing help message. */
     private static final String HELP = "ataxx/Help.txt";
 
+    /** Selective search techniques AIs use unless told otherwise. */
+    private static final int DEFAULT_PRUNING = 0;
+
+    /** Quiescence threshold of AIs unless told otherwise. */
+    private static final int DEFAULT_QUIESCENCE = 0;
+
+    /** Evaluation of AIs unless told otherwise. */
+    private static final Evaluator DEFAULT_EVALUATOR =
+        new PositionalEvaluator();
+
     /** A new Game that takes command/move input from INP, logs
      *  commands if LOGGING, displays the board using VIEW, and uses REPORTER
      *  for messages to the user and error messages. SEED is intended to
@@ -52,7 +64,7 @@ class Game {
         System.out.println("Welcome to " + Defaults.VERSION);
         _board.clear();
         setManual(RED);
-        setAuto(BLUE);
+        setAuto(BLUE, "");
         _exit = -1;
         winnerAnnounced = false;
         while (_exit < 0) {
@@ -137,6 +149,31 @@ class Game {
         _reporter.announceMove(move, player);
     }
 
+    /** Return true iff AIs should report their searches (see reportPV),
+     *  so that they need not compute what they would report otherwise. */
+    boolean analyzing() {
+        return _analyze;
+    }
+
+    /** Report that a search by PLAYER to DEPTH plies found VALUE with
+     *  principal variation PV (see Reporter.announcePV), if analysis is
+     *  on. */
+    void reportPV(PieceColor player, int depth, int value, List<Move> pv) {
+        if (_analyze) {
+            _reporter.announcePV(player, depth, value, pv);
+        }
+    }
+
+    /** Report that PLAYER solved the position, finding VALUE (see
+     *  Reporter.announceSolved) with principal variation PV, if analysis
+     *  is on. */
+    void reportSolved(PieceColor player, int value, boolean exact,
+                      List<Move> pv) {
+        if (_analyze) {
+            _reporter.announceSolved(player, value, exact, pv);
+        }
+    }
+
     /** Send a message to the user as determined by FORMAT and ARGS, which
      *  are interpreted as for String.format or PrintWriter.printf. */
     void message(String format, Object... args) {
@@ -148,9 +185,10 @@ class Game {
         _reporter.msg("* %s wins.", _board.getWinner().toString());
     }
 
-    /** Make the player of COLOR an AI for subsequent moves. */
-    private void setAuto(PieceColor color) {
-        setPlayer(color, new AI(this, color, _seed));
+    /** Make the player of COLOR an AI for subsequent moves, using the
+     *  search engine named ENGINE (the default if empty; see AI). */
+    private void setAuto(PieceColor color, String engine) {
+        setPlayer(color, new AI(this, color, _seed, engine));
         _seed += 1;
     }
 
@@ -190,6 +228,80 @@ class Game {
         printHelpResource(HELP, System.out);
     }
 
+    /** Report the number of positions DEPTH plies from the current
+     *  position (see Perft).  OPTIONS may contain "divide" (also report
+     *  counts for each move), "merged" (count extends onto the same
+     *  square once), and "parallel" (count subtrees concurrently). */
+    private void perft(int depth, String options) {
+        Perft perft = new Perft(options.contains("merged"));
+        _reporter.msg("%s", perft.run(_board, depth,
+                                      options.contains("divide"),
+                                      options.contains("parallel")));
+    }
+
+    /** Return the number of threads each AI uses to search. */
+    int threads() {
+        return _threads;
+    }
+
+    /** Let each AI search with THREADS threads. */
+    private void setThreads(int threads) {
+        if (threads < 1) {
+            throw error("need at least one thread");
+        }
+        _threads = threads;
+    }
+
+    /** Return the selective search techniques each AI uses (see
+     *  Searcher.setPruning). */
+    int pruning() {
+        return _pruning;
+    }
+
+    /** Return the least number of captures of the moves each AI searches
+     *  beyond its nominal depth, or 0 if none (see
+     *  Searcher.setQuiescence). */
+    int quiescence() {
+        return _quiescence;
+    }
+
+    /** Return the evaluation each AI uses. */
+    Evaluator evaluator() {
+        return _evaluator;
+    }
+
+    /** Let each AI use the evaluation named NAME ("material",
+     *  "positional", "nnue", or "patterns"). */
+    private void setEvaluator(String name) {
+        _evaluator = switch (name) {
+        case "material" -> Evaluator.MATERIAL;
+        case "nnue" -> {
+            if (Main.network() == null) {
+                throw error("no network loaded (see --nnue)");
+            }
+            yield Main.network();
+        }
+        case "patterns" -> {
+            if (Main.patterns() == null) {
+                throw error("no pattern tables loaded (see --patterns)");
+            }
+            yield Main.patterns();
+        }
+        default -> new PositionalEvaluator();
+        };
+    }
+
+    /** Let each AI use the selective search technique named TECHNIQUE
+     *  ("lmr", "futility", or "probcut") iff ON. */
+    private void setPruning(String technique, boolean on) {
+        int bit = switch (technique) {
+        case "lmr" -> Searcher.LMR;
+        case "futility" -> Searcher.FUTILITY;
+        default -> Searcher.PROBCUT;
+        };
+        _pruning = on ? _pruning | bit : _pruning & ~bit;
+    }
+
     /** Seed the random-number generator with SEED. */
     private void setSeed(long seed) {
         _seed = seed;
@@ -204,8 +316,11 @@ class Game {
             switch (cmnd.commandType()) {
             case COMMENT:
                 break;
+            case ANALYZE:
+                _analyze = parts[0].equals("on");
+                break;
             case AUTO:
-                setAuto(parseColor(parts[0]));
+                setAuto(parseColor(parts[0]), parts[1].trim());
                 break;
             case BOARD:
                 printBoard();
@@ -231,6 +346,21 @@ class Game {
             case SEED:
                 setSeed(toLong(parts[0]));
                 break;
+            case PERFT:
+                perft(toInt(parts[0]), parts[1]);
+                break;
+            case THREADS:
+                setThreads(toInt(parts[0]));
+                break;
+            case QUIESCE:
+                _quiescence = toInt(parts[0]);
+                break;
+            case PRUNE:
+                setPruning(parts[0], parts[1].equals("on"));
+                break;
+            case EVAL:
+                setEvaluator(parts[0]);
+                break;
             case VERBOSE:
                 _verbose = true;
                 break;
@@ -289,12 +419,26 @@ class Game {
 
     /** True iff we should print the board after each move. */
     private boolean _verbose;
+    /** True iff AIs should report each iteration of their searches. */
+    private boolean _analyze;
     /** Current pseudo-random number seed.  Provided as an argument to AIs
      *  that use a random element in their choices.  Incremented for each
      *  AI to which it is supplied.
      */
     private long _seed;
 
+    /** Number of threads each AI uses to search. */
+    private int _threads = 1;
+
+    /** Selective search techniques each AI uses. */
+    private int _pruning = DEFAULT_PRUNING;
+
+    /** Quiescence threshold of each AI. */
+    private int _quiescence = DEFAULT_QUIESCENCE;
+
+    /** Evaluation of each AI. */
+    private Evaluator _evaluator = DEFAULT_EVALUATOR;
+
     /** When set to a non-negative value, indicates that play should terminate
      *  at the earliest possible point, returning _exit.  When negative,
      *  indicates that the session is not over. */
@@ -28,13 +28,23 @@ public class Main {
      *       --log: Print commands.
      *       --strict: Strict mode---players errors cause error exit.
      *       --debug: Set level of debugging information.
+     *       --hash: Size of each AI's transposition table in megabytes.
+     *       --evalhash: Size of each AI's evaluation cache in megabytes
+     *               (0 for none).
+     *       --time: Each AI's time budget per move in milliseconds.
+     *       --nnue: File of the network for AIs' "nnue" evaluation.
+     *       --patterns: File of the tables for AIs' "patterns"
+     *               evaluation.
      *  Trailing arguments are input files; the standard input is the
      *  default.
      */
     public static void main(String[] args0) {
         CommandArgs args =
             new CommandArgs("--display{0,1} --strict --version --timing --log"
-                            + " --debug=(\\d+){0,1} --=(.*){0,}", args0);
+                            + " --debug=(\\d+){0,1} --hash=(\\d+){0,1}"
+                            + " --evalhash=(\\d+){0,1}"
+                            + " --time=(\\d+){0,1} --nnue=(.+){0,1}"
+                            + " --patterns=(.+){0,1} --=(.*){0,}", args0);
 
 
         System.out.println("CS61B Ataxx! Version 3.0");
@@ -50,10 +60,38 @@ public class Main {
         }
 
         _strict = args.contains("--strict");
+        _timing = args.contains("--timing");
         boolean log = args.contains("--log");
         if (args.contains("--debug")) {
             Utils.setMessageLevel(args.getInt("--debug"));
         }
+        if (args.contains("--hash")) {
+            _tableSize = args.getInt("--hash");
+        }
+        if (args.contains("--evalhash")) {
+            _evalCacheSize = args.getInt("--evalhash");
+        }
+        if (args.contains("--time")) {
+            _timeLimit = args.getInt("--time");
+        }
+        if (args.contains("--nnue")) {
+            String file = args.getFirst("--nnue");
+            try {
+                _network = NnueEvaluator.load(file);
+            } catch (IOException excp) {
+                System.err.printf("Could not load network %s%n", file);
+                System.exit(1);
+            }
+        }
+        if (args.contains("--patterns")) {
+            String file = args.getFirst("--patterns");
+            try {
+                _patterns = PatternEvaluator.load(file);
+            } catch (IOException excp) {
+                System.err.printf("Could not load patterns %s%n", file);
+                System.exit(1);
+            }
+        }
 
         Game game;
         if (args.contains("--display")) {
@@ -83,7 +121,9 @@ public class Main {
             game = new Game(new TextSource(inReaders),
                             (b) -> { }, new TextReporter(), log);
         }
-        System.exit(game.play());
+        int status = game.play();
+        reportTotalTimes();
+        System.exit(status);
     }
 
     /** Print usage message. */
@@ -98,6 +138,37 @@ public class Main {
         return _strict;
     }
 
+    /** Return the size in megabytes of the transposition table of each
+     *  AI, as set by --hash. */
+    static int tableSize() {
+        return _tableSize;
+    }
+
+    /** Return the size in megabytes of the evaluation cache of each AI
+     *  (0 for none), as set by --evalhash. */
+    static int evalCacheSize() {
+        return _evalCacheSize;
+    }
+
+    /** Return the time budget for each move of an AI in milliseconds, as
+     *  set by --time. */
+    static long timeLimit() {
+        return _timeLimit;
+    }
+
+    /** Return the network for the "nnue" evaluation of AIs, as loaded
+     *  from the file given by --nnue, or null if there is none. */
+    static Evaluator network() {
+        return _network;
+    }
+
+    /** Return the evaluator for the "patterns" evaluation of AIs, as
+     *  loaded from the file given by --patterns, or null if there is
+     *  none. */
+    static Evaluator patterns() {
+        return _patterns;
+    }
+
     /* TIMING */
 
     /** Start timing an operation. */
@@ -107,14 +178,16 @@ public class Main {
         }
     }
 
-    /** End the timing started with the last call to startTiming().
-     *  Report result if we are timing. */
-    static void endTiming() {
+    /** End the timing started with the last call to startTiming(), for
+     *  a search that reached depth DEPTH.  Report result if we are
+     *  timing. */
+    static void endTiming(int depth) {
         if (_timing) {
             long time = System.currentTimeMillis() - _startTime;
-            System.err.printf("[%d msec]%n", time);
+            System.err.printf("[depth %d, %d msec]%n", depth, time);
             _maxTime = Math.max(_maxTime, time);
             _totalTime += time;
+            _totalDepth += depth;
             _numTimedOps += 1;
         }
     }
@@ -124,9 +197,10 @@ public class Main {
         if (_timing && _numTimedOps > 0) {
             System.err.printf("[Total time: %d msec for %d operations. "
                               + "Avg: %d msec/operation. "
-                              + "Max: %d msec]%n", _totalTime,
-                              _numTimedOps, _totalTime / _numTimedOps,
-                              _maxTime);
+                              + "Max: %d msec. Avg depth: %.1f]%n",
+                              _totalTime, _numTimedOps,
+                              _totalTime / _numTimedOps, _maxTime,
+                              (double) _totalDepth / _numTimedOps);
         }
     }
 
@@ -137,12 +211,30 @@ public class Main {
      *  manual player terminate the program with an error code of 2. */
     private static boolean _strict;
 
+    /** Transposition-table size for AIs, in megabytes. */
+    private static int _tableSize = Searcher.DEFAULT_TABLE_SIZE;
+
+    /** Evaluation-cache size for AIs, in megabytes. */
+    private static int _evalCacheSize = Searcher.DEFAULT_EVAL_CACHE_SIZE;
+
+    /** Time budget per AI move, in milliseconds. */
+    private static long _timeLimit = AI.DEFAULT_TIME_LIMIT;
+
+    /** Network for AIs' "nnue" evaluation, or null. */
+    private static Evaluator _network;
+
+    /** Evaluator for AIs' "patterns" evaluation, or null. */
+    private static Evaluator _patterns;
+
     /** Accumulated time. */
     private static long _totalTime;
 
     /** Last start time. */
     private static long _startTime;
 
+    /** Accumulated search depth. */
+    private static long _totalDepth;
+
     /** Number of operations timed. */
     private static int _numTimedOps;
 
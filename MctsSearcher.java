@@ -0,0 +1,597 @@
+/* Skeleton code copyright (C) 2008, 2022 Paul N. Hilfinger and the
+ * Regents of the University of California.  Do not distribute this or any
+ * derivative work without permission. */
+
+package ataxx;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import static ataxx.PieceColor.*;
+import static ataxx.Searcher.MILLIS;
+
+/** A Monte Carlo tree search.  Each iteration descends the tree from the
+ *  root, choosing at each node the child with the best UCT (or, if so
+ *  constructed, PUCT) score, expands the node it reaches if that has
+ *  been visited often enough, plays the game out from there with fast,
+ *  partly capture-greedy moves (see playout), and adds the result to the
+ *  statistics of every node on the way down.  The move chosen is the
+ *  most visited at the root.
+ *
+ *  The tree is kept in parallel primitive arrays indexed by node number,
+ *  whose size is fixed when the searcher is constructed.  The children
+ *  of a node are allocated together, as a contiguous block of nodes.
+ *  Each search recycles all the nodes of the last, and once the arrays
+ *  are full, the tree stops growing and iterations play out from its
+ *  leaves, so that memory stays bounded however long the search runs.
+ *
+ *  Several threads may search the same tree ("tree parallelization").
+ *  Visits and wins are updated atomically, and a thread descending
+ *  through a node counts VIRTUAL_LOSS provisional losses there until its
+ *  playout is done, so that other threads tend to explore elsewhere.
+ *  @author J. Masoudi
+ */
+class MctsSearcher implements Engine {
+
+    /** Number of bytes of storage per tree node. */
+    static final int NODE_BYTES = 28;
+
+    /** Exploration constants of the UCT and PUCT formulas (see
+     *  select). */
+    static final double UCT_C = 0.7, PUCT_C = 1.5;
+
+    /** Value assumed for unvisited children by PUCT ("first-play
+     *  urgency"), as a fraction of a win. */
+    static final double FPU = 0.5;
+
+    /** Number of losses provisionally counted at each node on the path
+     *  of an iteration in progress. */
+    static final int VIRTUAL_LOSS = 3;
+
+    /** Number of visits after which a node is expanded. */
+    static final int EXPAND_VISITS = 8;
+
+    /** Probability that a playout move is chosen at random rather than
+     *  greedily (see playout). */
+    static final double EPSILON = 0.25;
+
+    /** Number of iterations per ply of DEPTH in fixed-effort searches
+     *  (see findMove(Board, int)). */
+    static final int ITERATIONS_PER_PLY = 1000;
+
+    /** Deepest path followed from the root. */
+    static final int MAX_PATH = 256;
+
+    /** A new searcher using at most MEGABYTES megabytes for its tree,
+     *  selecting children by PUCT if PUCT and otherwise by UCT, and
+     *  choosing random playout moves with a generator seeded with
+     *  SEED. */
+    MctsSearcher(int megabytes, boolean puct, long seed) {
+        long bytes = (long) megabytes << 20;
+        int capacity = (int) Math.min(Integer.MAX_VALUE / 2,
+                                      bytes / NODE_BYTES);
+        capacity = Math.max(capacity, Board.MAX_LEGAL_MOVES + 1);
+        _move = new int[capacity];
+        _first = new int[capacity];
+        _count = new int[capacity];
+        _prior = new float[capacity];
+        _state = new AtomicIntegerArray(capacity);
+        _visits = new AtomicIntegerArray(capacity);
+        _wins = new AtomicIntegerArray(capacity);
+        _puct = puct;
+        _random = new SplittableRandom(seed);
+        setThreads(1);
+    }
+
+    @Override
+    public void setThreads(int threads) {
+        threads = Math.max(1, threads);
+        if (_workers != null && threads == _workers.length) {
+            return;
+        }
+        if (_pool != null) {
+            _pool.shutdown();
+            _pool = null;
+        }
+        _workers = new Worker[threads];
+        for (int i = 0; i < threads; i += 1) {
+            _workers[i] = new Worker(_random.split());
+            _workers[i].setBatch(_batchSize);
+        }
+        if (threads > 1) {
+            _pool = Executors.newFixedThreadPool(threads - 1, (r) -> {
+                Thread thread = new Thread(r, "ataxx mcts worker");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /** Return the number of nodes the tree can hold. */
+    int capacity() {
+        return _move.length;
+    }
+
+    /** If GREEDY (the default), choose playout moves partly by the
+     *  number of pieces they gain (see playout); otherwise choose them
+     *  at random. */
+    void setGreedyPlayouts(boolean greedy) {
+        _greedy = greedy;
+    }
+
+    /** Evaluate each leaf reached by the search with a batch of SIZE
+     *  uniformly random playouts run together (see Playouts), rather
+     *  than a single one, if SIZE > 1.  Greedy playouts are then not
+     *  used. */
+    void setPlayoutBatch(int size) {
+        for (Worker worker : _workers) {
+            worker.setBatch(size);
+        }
+        _batchSize = size;
+    }
+
+    /** Return a best move for the player to move on BOARD, after
+     *  DEPTH * ITERATIONS_PER_PLY iterations.  (There is no fixed depth
+     *  in this search, so DEPTH measures effort.)  The game must not be
+     *  over (otherwise returns null).  BOARD is not changed. */
+    @Override
+    public Move findMove(Board board, int depth) {
+        return search(board, Long.MAX_VALUE,
+                      (long) depth * ITERATIONS_PER_PLY);
+    }
+
+    /** Return a best move for the player to move on BOARD, searching for
+     *  SOFTLIMIT milliseconds, the time that Searcher takes on average.
+     *  MAXDEPTH and HARDLIMIT are ignored.  The game must not be over
+     *  (otherwise returns null).  BOARD is not changed. */
+    @Override
+    public Move findMove(Board board, int maxDepth, long softLimit,
+                         long hardLimit) {
+        Move move = search(board, System.nanoTime() + softLimit * MILLIS,
+                           Long.MAX_VALUE);
+        _notifier.accept(this);
+        return move;
+    }
+
+    /** {@inheritDoc}  The value of a move is its proportion of wins (a
+     *  draw counting as half) in the search, scaled to -1000 (all losses)
+     *  to 1000 (all wins), from red's point of view. */
+    @Override
+    public int value() {
+        return _value;
+    }
+
+    /** {@inheritDoc}  That is, the length of the longest path followed
+     *  down the tree. */
+    @Override
+    public int depth() {
+        return _depth;
+    }
+
+    /** {@inheritDoc}  That is, the number of playouts. */
+    @Override
+    public long nodes() {
+        return _playouts.sum();
+    }
+
+    /** Return the number of tree nodes in use. */
+    int treeSize() {
+        return Math.min(_size.get(), capacity());
+    }
+
+    @Override
+    public String statistics() {
+        return String.format("mcts (%s): depth %d, %d playouts, %d of %d "
+                             + "nodes, %d threads, value %d",
+                             _puct ? "puct" : "uct", _depth, nodes(),
+                             treeSize(), capacity(), _workers.length,
+                             _value);
+    }
+
+    /** {@inheritDoc}  The variation follows the most visited child from
+     *  each node of the tree. */
+    @Override
+    public List<Move> principalVariation() {
+        ArrayList<Move> result = new ArrayList<>();
+        if (_root == null) {
+            return result;
+        }
+        Board board = new Board(_root);
+        int node = ROOT;
+        while (_state.get(node) == EXPANDED) {
+            node = mostVisited(node);
+            Move move = board.toMove(_move[node]);
+            result.add(move);
+            board.makeMove(move);
+        }
+        return result;
+    }
+
+    @Override
+    public void setNotifier(Consumer<Engine> notify) {
+        _notifier = notify;
+    }
+
+    /** {@inheritDoc}  This search does no pruning, and ignores
+     *  TECHNIQUES. */
+    @Override
+    public void setPruning(int techniques) {
+    }
+
+    /** {@inheritDoc}  This search has no quiescence search, and ignores
+     *  THRESHOLD. */
+    @Override
+    public void setQuiescence(int threshold) {
+    }
+
+    /** {@inheritDoc}  This search evaluates by playouts, and ignores
+     *  EVALUATOR. */
+    @Override
+    public void setEvaluator(Evaluator evaluator) {
+    }
+
+    /** Search BOARD until System.nanoTime() passes DEADLINE or
+     *  ITERATIONS iterations have been done, and return the most
+     *  visited move at the root, or null if the game is over. */
+    private Move search(Board board, long deadline, long iterations) {
+        _root = board;
+        _playouts.reset();
+        _depth = 0;
+        _iterations.set(0);
+        _deadline = deadline;
+        _limit = iterations;
+        _size.set(1);
+        _full = false;
+        clearNode(ROOT, 0);
+        if (board.computeWinner() != null) {
+            return null;
+        }
+        Future<?>[] helping = new Future<?>[_workers.length - 1];
+        for (int i = 1; i < _workers.length; i += 1) {
+            Worker worker = _workers[i];
+            Board copy = new Board(board);
+            helping[i - 1] = _pool.submit(() -> worker.run(copy));
+        }
+        _workers[0].run(new Board(board));
+        for (Future<?> task : helping) {
+            try {
+                task.get();
+            } catch (InterruptedException | ExecutionException excp) {
+                throw new Error("search worker failed", excp);
+            }
+        }
+        for (Worker worker : _workers) {
+            _depth = Math.max(_depth, worker._longest);
+        }
+        if (_state.get(ROOT) != EXPANDED) {
+            return null;
+        }
+        int best = mostVisited(ROOT);
+        int sense = board.whoseMove() == RED ? 1 : -1;
+        int visits = Math.max(1, _visits.get(best));
+        _value = (int) Math.round(sense * 1000.0
+                                  * (_wins.get(best) - visits) / visits);
+        return board.toMove(_move[best]);
+    }
+
+    /** Return the most visited child of NODE, which must be expanded. */
+    private int mostVisited(int node) {
+        int best = _first[node];
+        for (int c = best + 1; c < _first[node] + _count[node]; c += 1) {
+            if (_visits.get(c) > _visits.get(best)) {
+                best = c;
+            }
+        }
+        return best;
+    }
+
+    /** Initialize NODE as an unexpanded node reached by the packed move
+     *  MOVE. */
+    private void clearNode(int node, int move) {
+        _move[node] = move;
+        _count[node] = 0;
+        _visits.set(node, 0);
+        _wins.set(node, 0);
+        _state.set(node, UNEXPANDED);
+    }
+
+    /** One thread's part of a search, with its own board, buffers, and
+     *  random-number generator. */
+    private class Worker {
+
+        /** A worker using RANDOM for its playouts. */
+        Worker(SplittableRandom random) {
+            _playoutRandom = random;
+        }
+
+        /** Run iterations from the position BOARD until the search is
+         *  done. */
+        void run(Board board) {
+            _longest = 0;
+            while (System.nanoTime() < _deadline
+                   && _iterations.getAndIncrement() < _limit) {
+                iterate(board);
+            }
+        }
+
+        /** Do one iteration of the search from BOARD, which is restored
+         *  afterwards. */
+        private void iterate(Board board) {
+            int[] path = _path;
+            int length = 0;
+            int node = ROOT;
+            path[length++] = node;
+            while (board.computeWinner() == null && length < MAX_PATH) {
+                int state = _state.get(node);
+                if (state != EXPANDED
+                    && (state == EXPANDING
+                        || node != ROOT && _visits.get(node) < EXPAND_VISITS
+                        || !expand(node, board))) {
+                    break;
+                }
+                node = select(node);
+                _visits.addAndGet(node, VIRTUAL_LOSS);
+                board.makeMoveUnchecked(_move[node]);
+                path[length++] = node;
+            }
+            _longest = Math.max(_longest, length - 1);
+            int games, result;
+            if (_batch == null) {
+                games = 1;
+                result = playout(board.pieces(RED), board.pieces(BLUE),
+                                 board.empties(), board.numJumps(),
+                                 board.whoseMove() == RED, _playoutRandom,
+                                 _greedy);
+            } else {
+                games = _batch.size();
+                result = (int) Math.round(games
+                                          * _batch.evaluate(board, _results));
+            }
+            _playouts.add(games);
+            /* Node path[i] was reached by a move of the player to move
+             * after i - 1 moves from the root. */
+            boolean redMoved = board.whoseMove() != RED;
+            for (int i = length - 1; i >= 0; i -= 1) {
+                int points = games + (redMoved ? result : -result);
+                _visits.addAndGet(path[i],
+                                  i == 0 ? games : games - VIRTUAL_LOSS);
+                _wins.addAndGet(path[i], points);
+                if (i > 0) {
+                    board.undoUnchecked();
+                }
+                redMoved = !redMoved;
+            }
+        }
+
+        /** Play out each leaf with a batch of SIZE games if SIZE > 1,
+         *  and otherwise with one. */
+        void setBatch(int size) {
+            if (size > 1) {
+                _batch = new Playouts(size, _playoutRandom.nextLong());
+                _results = new int[size];
+            } else {
+                _batch = null;
+            }
+        }
+
+        /** Expand NODE, whose position is BOARD, by allocating its
+         *  children, unless another thread is doing so or the tree is
+         *  full.  Return true iff NODE is now expanded. */
+        private boolean expand(int node, Board board) {
+            if (_full
+                || !_state.compareAndSet(node, UNEXPANDED, EXPANDING)) {
+                return _state.get(node) == EXPANDED;
+            }
+            int[] moves = _moves;
+            int n = board.legalMoves(moves, 0);
+            int first = _size.getAndAdd(n);
+            if (first + n > capacity()) {
+                _full = true;
+                _state.set(node, UNEXPANDED);
+                return false;
+            }
+            float total = 0;
+            for (int i = 0; i < n; i += 1) {
+                clearNode(first + i, moves[i]);
+                _prior[first + i] = 1 + board.captures(moves[i])
+                    + (Move.isJump(moves[i]) ? 0 : 1);
+                total += _prior[first + i];
+            }
+            for (int i = 0; i < n; i += 1) {
+                _prior[first + i] /= total;
+            }
+            _first[node] = first;
+            _count[node] = n;
+            _state.set(node, EXPANDED);
+            return true;
+        }
+
+        /** Buffer for moves. */
+        private final int[] _moves = new int[Board.MAX_LEGAL_MOVES];
+        /** The nodes on the path of the current iteration. */
+        private final int[] _path = new int[MAX_PATH + 1];
+        /** Source of random playout moves. */
+        private final SplittableRandom _playoutRandom;
+        /** Batch of playouts for each leaf, or null if each leaf gets one
+         *  playout. */
+        private Playouts _batch;
+        /** Results of the games of _batch. */
+        private int[] _results;
+        /** Number of moves in the longest path followed in the current
+         *  search. */
+        private int _longest;
+    }
+
+    /** Return the child of NODE, which must be expanded, with the
+     *  highest score, which for a child with V visits and W wins (where
+     *  these count 2 per win and 1 per draw for the player moving into
+     *  it) out of N visits to NODE is
+     *      W/2V + UCT_C * sqrt(ln N / V)
+     *  for UCT (unvisited children come first), or
+     *      W/2V + PUCT_C * P * sqrt(N) / (1 + V)
+     *  for PUCT, where P is the child's prior probability, proportional
+     *  to one plus the number of pieces it gains.  FPU replaces W/2V for
+     *  an unvisited child. */
+    private int select(int node) {
+        int first = _first[node], end = first + _count[node];
+        double parentVisits = _visits.get(node) + 1;
+        double log = Math.log(parentVisits), sqrt = Math.sqrt(parentVisits);
+        int best = first;
+        double bestScore = Double.NEGATIVE_INFINITY;
+        for (int c = first; c < end; c += 1) {
+            int visits = _visits.get(c);
+            double score;
+            if (_puct) {
+                double q = visits == 0 ? FPU : _wins.get(c) / (2.0 * visits);
+                score = q + PUCT_C * _prior[c] * sqrt / (1 + visits);
+            } else if (visits == 0) {
+                return c;
+            } else {
+                score = _wins.get(c) / (2.0 * visits)
+                    + UCT_C * Math.sqrt(log / visits);
+            }
+            if (score > bestScore) {
+                bestScore = score;
+                best = c;
+            }
+        }
+        return best;
+    }
+
+    /** Play out the game from the position with red pieces RED, blue
+     *  pieces BLUE, empty squares EMPTY, and NUMJUMPS consecutive jumps
+     *  just made, with red to move iff REDTOMOVE, and return 1 if red
+     *  wins, -1 if blue wins, or 0 for a draw.  Each player chooses a
+     *  random square to move to with probability EPSILON (or always, if
+     *  not GREEDY), and otherwise the one that gains the most pieces,
+     *  extending to it if possible and otherwise jumping to it from a
+     *  random piece, using RANDOM.  Works on bitboards alone, rather
+     *  than a Board, for speed. */
+    static int playout(long red, long blue, long empty, int numJumps,
+                       boolean redToMove, SplittableRandom random,
+                       boolean greedy) {
+        long mine = redToMove ? red : blue, theirs = redToMove ? blue : red;
+        boolean passed = false;
+        while (mine != 0 && theirs != 0 && numJumps < Board.JUMP_LIMIT) {
+            long targets = Squares.reach(mine) & empty;
+            if (targets == 0) {
+                if (passed) {
+                    break;
+                }
+                passed = true;
+            } else {
+                passed = false;
+                int to;
+                if (!greedy || random.nextDouble() < EPSILON) {
+                    to = Squares.nth(targets,
+                                     random.nextInt(Squares.count(targets)));
+                } else {
+                    to = greediest(targets, mine, theirs);
+                }
+                long bit = 1L << to;
+                if ((Squares.clones(to) & mine) != 0) {
+                    numJumps = 0;
+                } else {
+                    long sources = Squares.jumps(to) & mine;
+                    long from = 1L << Squares.nth(sources, random.nextInt(
+                        Squares.count(sources)));
+                    mine ^= from;
+                    empty |= from;
+                    numJumps += 1;
+                }
+                long captured = Squares.clones(to) & theirs;
+                mine |= bit | captured;
+                theirs ^= captured;
+                empty ^= bit;
+            }
+            long t = mine;
+            mine = theirs;
+            theirs = t;
+            redToMove = !redToMove;
+        }
+        int difference = Squares.count(mine) - Squares.count(theirs);
+        return Integer.signum(redToMove ? difference : -difference);
+    }
+
+    /** Return the square in TARGETS to which a move by the player with
+     *  pieces MINE gains the most pieces from the player with pieces
+     *  THEIRS. */
+    private static int greediest(long targets, long mine, long theirs) {
+        int best = -1, bestGain = -1;
+        for (; targets != 0; targets &= targets - 1) {
+            int to = Squares.first(targets);
+            long near = Squares.clones(to);
+            int gain = 2 * Squares.count(near & theirs)
+                + ((near & mine) != 0 ? 1 : 0);
+            if (gain > bestGain) {
+                best = to;
+                bestGain = gain;
+            }
+        }
+        return best;
+    }
+
+    /** Index of the root node. */
+    private static final int ROOT = 0;
+
+    /** Expansion states of nodes. */
+    private static final int UNEXPANDED = 0, EXPANDING = 1, EXPANDED = 2;
+
+    /** For each node, the packed move that reaches it. */
+    private final int[] _move;
+    /** For each expanded node, its first child and number of children. */
+    private final int[] _first, _count;
+    /** For each node, the prior probability of its move (see select). */
+    private final float[] _prior;
+    /** For each node, its expansion state. */
+    private final AtomicIntegerArray _state;
+    /** For each node, its number of visits, including virtual losses. */
+    private final AtomicIntegerArray _visits;
+    /** For each node, its wins for the player who moves into it, counting
+     *  2 per win and 1 per draw. */
+    private final AtomicIntegerArray _wins;
+    /** Number of nodes allocated (may exceed capacity() once full). */
+    private final AtomicInteger _size = new AtomicInteger();
+    /** True iff the tree has filled in the current search. */
+    private volatile boolean _full;
+
+    /** True iff children are selected by PUCT rather than UCT. */
+    private final boolean _puct;
+    /** True iff playout moves are partly greedy. */
+    private boolean _greedy = true;
+    /** Number of playouts per leaf (see setPlayoutBatch). */
+    private int _batchSize = 1;
+
+    /** Seeds the random-number generators of the workers. */
+    private final SplittableRandom _random;
+    /** One worker per thread; the first runs in the caller's thread. */
+    private Worker[] _workers;
+    /** Threads for all workers but the first, or null if none. */
+    private ExecutorService _pool;
+
+    /** Number of iterations started in the current search. */
+    private final AtomicLong _iterations = new AtomicLong();
+    /** Maximum number of iterations in the current search. */
+    private volatile long _limit;
+    /** Time (as from System.nanoTime) at which to stop searching. */
+    private volatile long _deadline;
+    /** Number of playouts in the current search. */
+    private final LongAdder _playouts = new LongAdder();
+
+    /** The position searched by the last findMove. */
+    private Board _root;
+    /** Value and depth of the last search. */
+    private int _value, _depth;
+    /** Called after each timed search. */
+    private Consumer<Engine> _notifier = (e) -> { };
+}
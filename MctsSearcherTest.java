@@ -0,0 +1,116 @@
+/* Skeleton code copyright (C) 2008, 2022 Paul N. Hilfinger and the
+ * Regents of the University of California.  Do not distribute this or any
+ * derivative work without permission. */
+
+package ataxx;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.junit.Test;
+
+import static ataxx.PieceColor.*;
+import static org.junit.Assert.*;
+
+/** Tests of the MctsSearcher class.
+ *  @author J. Masoudi
+ */
+public class MctsSearcherTest {
+
+    @Test
+    public void testPlayout() {
+        SplittableRandom random = new SplittableRandom(3);
+        for (int k = 0; k < 50; k += 1) {
+            Board b = SearcherTest.randomPosition(k, k);
+            for (boolean greedy : new boolean[] { false, true }) {
+                int result =
+                    MctsSearcher.playout(b.pieces(RED), b.pieces(BLUE),
+                                         b.empties(), b.numJumps(),
+                                         b.whoseMove() == RED, random,
+                                         greedy);
+                assertTrue("bad result " + result,
+                           result >= -1 && result <= 1);
+            }
+        }
+        Board b = new Board();
+        makeMoves(b, "a7-b7", "a1-b1", "b7-c6", "g7-f7", "g1-f1");
+        assertEquals("finished game misjudged", 1,
+                     MctsSearcher.playout(b.pieces(RED), 0, b.empties(), 0,
+                                          false, random, true));
+    }
+
+    @Test
+    public void testFindsWin() {
+        Board b = SearcherTest.randomPosition(8, 37);
+        for (boolean puct : new boolean[] { false, true }) {
+            MctsSearcher searcher = new MctsSearcher(1, puct, 5);
+            Move mv = searcher.findMove(b, 2);
+            assertTrue("illegal move found", b.legalMove(mv));
+            Board after = new Board(b);
+            after.makeMove(mv);
+            assertEquals("missed immediate win", b.whoseMove(),
+                         after.getWinner());
+            assertEquals("wrong number of playouts",
+                         2 * MctsSearcher.ITERATIONS_PER_PLY,
+                         searcher.nodes());
+        }
+    }
+
+    @Test
+    public void testBatch() {
+        Board b = SearcherTest.randomPosition(8, 37);
+        MctsSearcher searcher = new MctsSearcher(1, false, 5);
+        searcher.setPlayoutBatch(4);
+        Move mv = searcher.findMove(b, 1);
+        Board after = new Board(b);
+        after.makeMove(mv);
+        assertEquals("missed immediate win", b.whoseMove(),
+                     after.getWinner());
+        assertEquals("wrong number of playouts",
+                     4 * MctsSearcher.ITERATIONS_PER_PLY, searcher.nodes());
+    }
+
+    @Test
+    public void testSearch() {
+        MctsSearcher searcher = new MctsSearcher(1, false, 7);
+        for (int threads = 1; threads <= 3; threads += 1) {
+            searcher.setThreads(threads);
+            for (int k = 0; k < 5; k += 1) {
+                Board b = SearcherTest.randomPosition(10 + 5 * k, k);
+                if (b.getWinner() != null) {
+                    continue;
+                }
+                String before = b.toString();
+                Move mv = searcher.findMove(b, Searcher.MAX_PLY, 50, 50);
+                assertEquals("board changed", before, b.toString());
+                assertTrue("illegal move found", b.legalMove(mv));
+                List<Move> pv = searcher.principalVariation();
+                assertEquals("variation does not start with the move", mv,
+                             pv.get(0));
+                assertTrue("no playouts", searcher.nodes() > 0);
+                assertTrue("tree overflowed",
+                           searcher.treeSize() <= searcher.capacity());
+                assertTrue("bad value", Math.abs(searcher.value()) <= 1000);
+            }
+        }
+    }
+
+    @Test
+    public void testBounded() {
+        MctsSearcher searcher = new MctsSearcher(0, true, 9);
+        Board b = SearcherTest.randomPosition(8, 4);
+        Move mv = searcher.findMove(b, 20);
+        assertTrue("illegal move found", b.legalMove(mv));
+        assertTrue("tree overflowed",
+                   searcher.treeSize() <= searcher.capacity());
+        assertEquals("playouts stopped when tree filled",
+                     20 * MctsSearcher.ITERATIONS_PER_PLY, searcher.nodes());
+    }
+
+    /** Make MOVES on B. */
+    private static void makeMoves(Board b, String... moves) {
+        for (String move : moves) {
+            b.makeMove(Move.move(move));
+        }
+    }
+}
@@ -33,6 +33,12 @@ class Move {
         _isExtend = (abs(_col1 - _col0) <= 1 && abs(_row1 - _row0) <= 1)
                 && !(abs(_col1 - _col0) == 0 && abs(_row1 - _row0) == 0);
         _isJump = abs(_col1 - _col0) == 2 || abs(_row1 - _row0) == 2;
+        int from = Squares.bit(_fromIndex), to = Squares.bit(_toIndex);
+        if (to < 0) {
+            _packed = 0;
+        } else {
+            _packed = pack(from, to, _isJump);
+        }
     }
 
     /** A pass. */
@@ -40,6 +46,7 @@ class Move {
         _col0 = _col1 = _row0 = _row1 = 0;
         _fromIndex = _toIndex = -1;
         _isJump = _isExtend = false;
+        _packed = PACKED_PASS;
     }
 
     /** A factory method that returns a Move from COL0 ROW0 to COL1 ROW1,
@@ -69,6 +76,77 @@ class Move {
         }
     }
 
+    /* Packed moves.  Searches generate many more moves than they ever
+     * report, so the AI represents moves as ints, rather than Moves, to
+     * avoid even the table lookups in the move factory.  A packed move
+     * holds the bit numbers (see Squares) of the from and to squares
+     * and a kind (extend, jump, or pass) in the form
+     *      FROM | (TO << 6) | (KIND << 12).
+     * All packed moves are positive, so 0 may be used to mean "no move".
+     * Moves that go into the border have no packed form.
+     *
+     * Every extend onto a given empty square produces the same position,
+     * whichever adjacent piece it comes from, so searches need consider
+     * only one of them.  A packed extend whose from and to squares are
+     * the same (a "canonical clone") stands for an extend onto the to
+     * square from any adjacent piece of the player to move.  Only a Board
+     * can turn it into a Move (see Board.toMove). */
+
+    /** Return the packed form of the move from the square with bit
+     *  number FROM to that with bit number TO, which is a jump iff
+     *  JUMP. */
+    static int pack(int from, int to, boolean jump) {
+        return from | (to << BITS) | (jump ? PACKED_JUMP : PACKED_EXTEND);
+    }
+
+    /** Return the packed canonical clone onto the square with bit number
+     *  TO. */
+    static int packClone(int to) {
+        return pack(to, to, false);
+    }
+
+    /** Return true iff PACKED is a canonical clone. */
+    static boolean isCanonicalClone(int packed) {
+        return (packed & KIND_MASK) == PACKED_EXTEND
+            && from(packed) == to(packed);
+    }
+
+    /** Return the bit number of the from square of PACKED. */
+    static int from(int packed) {
+        return packed & SQUARE_MASK;
+    }
+
+    /** Return the bit number of the to square of PACKED. */
+    static int to(int packed) {
+        return (packed >> BITS) & SQUARE_MASK;
+    }
+
+    /** Return true iff PACKED is a jump. */
+    static boolean isJump(int packed) {
+        return (packed & KIND_MASK) == PACKED_JUMP;
+    }
+
+    /** Return true iff PACKED is a pass. */
+    static boolean isPass(int packed) {
+        return packed == PACKED_PASS;
+    }
+
+    /** Return the Move whose packed form is PACKED, which must not be a
+     *  canonical clone. */
+    static Move unpack(int packed) {
+        if (isPass(packed)) {
+            return PASS;
+        }
+        int from = from(packed), to = to(packed);
+        return move(Squares.col(from), Squares.row(from),
+                    Squares.col(to), Squares.row(to));
+    }
+
+    /** Return my packed form, or 0 if I go into the border. */
+    int packed() {
+        return _packed;
+    }
+
     /** Returns a pass. */
     static Move pass() {
         return PASS;
@@ -146,12 +224,27 @@ class Move {
     /** Size of side of a board plus 2-deep boundary. */
     static final int EXTENDED_SIDE = SIDE + 4;
 
+    /** Number of bits in each square field of a packed move. */
+    private static final int BITS = 6;
+    /** Mask for a square field of a packed move. */
+    private static final int SQUARE_MASK = (1 << BITS) - 1;
+    /** Kinds of packed moves. */
+    private static final int
+        PACKED_EXTEND = 1 << (2 * BITS),
+        PACKED_JUMP = 2 << (2 * BITS),
+        KIND_MASK = 3 << (2 * BITS);
+    /** The packed form of a pass. */
+    static final int PACKED_PASS = KIND_MASK;
+
     /** The pass. */
     static final Move PASS = new Move();
 
     /** Linearized indices. */
     private final int _fromIndex, _toIndex;
 
+    /** Packed form (see pack). */
+    private final int _packed;
+
     /** Move characteristics, indicating whether move is extension or jump. */
     private boolean _isExtend, _isJump;
 
@@ -59,4 +59,20 @@ public class MoveTest {
 
         assertEquals("wrong string for pass", "-", pass().toString());
     }
+
+    @Test
+    public void testPacked() {
+        Move m = move('g', '1', 'e', '3');
+        int p = m.packed();
+        assertTrue("packed move not positive", p > 0);
+        assertTrue("packed jump not jump", Move.isJump(p));
+        assertSame("bad unpacked move", m, Move.unpack(p));
+        Move m1 = move('c', '4', 'd', '5');
+        assertFalse("packed extend is jump", Move.isJump(m1.packed()));
+        assertSame("bad unpacked move", m1, Move.unpack(m1.packed()));
+        assertTrue("bad packed pass", Move.isPass(pass().packed()));
+        assertSame("bad unpacked pass", pass(), Move.unpack(PACKED_PASS));
+        assertEquals("border move has packed form", 0,
+                     move('a', '1', (char) ('a' - 1), '1').packed());
+    }
 }
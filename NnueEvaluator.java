@@ -0,0 +1,277 @@
+/* Skeleton code copyright (C) 2008, 2022 Paul N. Hilfinger and the
+ * Regents of the University of California.  Do not distribute this or any
+ * derivative work without permission. */
+
+package ataxx;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+import static ataxx.PieceColor.*;
+
+/** An evaluation by a small neural network with quantized weights, in
+ *  the style of an NNUE ("efficiently updatable neural network").
+ *
+ *  The inputs are one per square and color: 1 if the square holds a
+ *  piece of that color, and 0 otherwise.  The first layer's outputs (the
+ *  accumulator, HIDDEN1 16-bit values) are therefore sums of the rows of
+ *  its weight matrix selected by the occupied squares.  Each thread keeps
+ *  the accumulator of the last position it evaluated, and brings it up to
+ *  date for the next by adding and subtracting the rows for the squares
+ *  that have changed since, so that after a move (or its undo) only the
+ *  moved, captured, or vacated squares cost anything.  The accumulator
+ *  values, clipped to 0 .. CLIP, feed a dense layer of HIDDEN2 units with
+ *  8-bit weights, whose outputs, shifted right by SHIFT and clipped the
+ *  same way, feed an output unit with 8-bit weights.  The output divided
+ *  by the network's output scale is the value, from red's point of view.
+ *
+ *  A network file holds, little-endian: the int MAGIC; the ints HIDDEN1,
+ *  HIDDEN2, and the output scale; the first layer's weights (short,
+ *  INPUTS rows of HIDDEN1) and biases (short, HIDDEN1); the second
+ *  layer's weights (byte, HIDDEN2 rows of HIDDEN1) and biases (int,
+ *  HIDDEN2); and the output weights (byte, HIDDEN2) and bias (int).
+ *  Input number COLOR * Squares.SIZE + BIT, where COLOR is 0 for red and
+ *  1 for blue, is the square with bit number BIT.
+ *  @author J. Masoudi
+ */
+class NnueEvaluator implements Evaluator {
+
+    /** Number of inputs. */
+    static final int INPUTS = 2 * Squares.SIZE;
+
+    /** First int of a network file ("NNUE"). */
+    static final int MAGIC = 0x4e4e5545;
+
+    /** Upper limit of the clipped outputs of the hidden layers. */
+    static final int CLIP = 127;
+
+    /** Right shift of the sums of the second layer. */
+    static final int SHIFT = 6;
+
+    /** A network with HIDDEN1 and HIDDEN2 units in its hidden layers,
+     *  whose output is divided by OUTPUTSCALE, with weights W1 (INPUTS
+     *  rows of HIDDEN1), W2 (HIDDEN2 rows of HIDDEN1), and W3, and biases
+     *  B1, B2, and B3, for its three layers.  The arrays other than W2
+     *  are not copied. */
+    NnueEvaluator(int hidden1, int hidden2, int outputScale,
+                  short[] w1, short[] b1, byte[] w2, int[] b2, byte[] w3,
+                  int b3) {
+        _hidden1 = hidden1;
+        _hidden2 = hidden2;
+        _outputScale = outputScale;
+        _w1 = w1;
+        _b1 = b1;
+        _w2 = new int[w2.length];
+        for (int i = 0; i < w2.length; i += 1) {
+            _w2[i] = w2[i];
+        }
+        _b2 = b2;
+        _w3 = w3;
+        _b3 = b3;
+    }
+
+    /** Return the network in the file named FILE, which is mapped into
+     *  memory to read it. */
+    static NnueEvaluator load(String file) throws IOException {
+        try (FileChannel channel =
+             FileChannel.open(Path.of(file), StandardOpenOption.READ)) {
+            ByteBuffer buf =
+                channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buf.order(ByteOrder.LITTLE_ENDIAN);
+            if (buf.remaining() < 4 * Integer.BYTES
+                || buf.getInt() != MAGIC) {
+                throw new IOException("not a network file: " + file);
+            }
+            int hidden1 = buf.getInt(), hidden2 = buf.getInt(),
+                outputScale = buf.getInt();
+            if (hidden1 <= 0 || hidden2 <= 0 || outputScale <= 0
+                || buf.remaining() != size(hidden1, hidden2)) {
+                throw new IOException("malformed network file: " + file);
+            }
+            short[] w1 = new short[INPUTS * hidden1],
+                b1 = new short[hidden1];
+            byte[] w2 = new byte[hidden2 * hidden1], w3 = new byte[hidden2];
+            int[] b2 = new int[hidden2];
+            buf.asShortBuffer().get(w1).get(b1);
+            buf.position(buf.position() + Short.BYTES * (w1.length
+                                                         + b1.length));
+            buf.get(w2);
+            buf.asIntBuffer().get(b2);
+            buf.position(buf.position() + Integer.BYTES * b2.length);
+            buf.get(w3);
+            return new NnueEvaluator(hidden1, hidden2, outputScale,
+                                     w1, b1, w2, b2, w3, buf.getInt());
+        }
+    }
+
+    /** Write this network to the file named FILE, in the format read by
+     *  load. */
+    void save(String file) throws IOException {
+        ByteBuffer buf =
+            ByteBuffer.allocate(4 * Integer.BYTES + size(_hidden1, _hidden2));
+        buf.order(ByteOrder.LITTLE_ENDIAN);
+        buf.putInt(MAGIC).putInt(_hidden1).putInt(_hidden2)
+            .putInt(_outputScale);
+        for (short w : _w1) {
+            buf.putShort(w);
+        }
+        for (short b : _b1) {
+            buf.putShort(b);
+        }
+        for (int w : _w2) {
+            buf.put((byte) w);
+        }
+        for (int b : _b2) {
+            buf.putInt(b);
+        }
+        buf.put(_w3).putInt(_b3);
+        buf.flip();
+        try (FileChannel channel =
+             FileChannel.open(Path.of(file), StandardOpenOption.WRITE,
+                              StandardOpenOption.CREATE,
+                              StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buf.hasRemaining()) {
+                channel.write(buf);
+            }
+        }
+    }
+
+    /** Return the number of bytes in a network file after its header for
+     *  a network with HIDDEN1 and HIDDEN2 hidden units. */
+    private static int size(int hidden1, int hidden2) {
+        return Short.BYTES * (INPUTS + 1) * hidden1
+            + hidden2 * hidden1 + Integer.BYTES * hidden2 + hidden2
+            + Integer.BYTES;
+    }
+
+    /** Return a network whose value is exactly red's pieces minus blue's:
+     *  one accumulator unit counts each color, and the rest pass the
+     *  counts through. */
+    static NnueEvaluator material() {
+        short[] w1 = new short[INPUTS * 2];
+        for (int bit = 0; bit < Squares.SIZE; bit += 1) {
+            w1[2 * bit] = 1;
+            w1[2 * (Squares.SIZE + bit) + 1] = 1;
+        }
+        byte[] w2 = { 1 << SHIFT, 0, 0, 1 << SHIFT };
+        return new NnueEvaluator(2, 2, 1, w1, new short[2], w2,
+                                 new int[2], new byte[] { 1, -1 }, 0);
+    }
+
+    /** Return a network with HIDDEN1 and HIDDEN2 hidden units and
+     *  pseudo-random weights chosen using SEED, of no value for play but
+     *  of a realistic size for measuring speed. */
+    static NnueEvaluator random(int hidden1, int hidden2, long seed) {
+        Random random = new Random(seed);
+        short[] w1 = new short[INPUTS * hidden1], b1 = new short[hidden1];
+        byte[] w2 = new byte[hidden2 * hidden1], w3 = new byte[hidden2];
+        int[] b2 = new int[hidden2];
+        for (int i = 0; i < w1.length; i += 1) {
+            w1[i] = (short) (random.nextInt(65) - 32);
+        }
+        for (int i = 0; i < b1.length; i += 1) {
+            b1[i] = (short) random.nextInt(CLIP + 1);
+        }
+        random.nextBytes(w2);
+        random.nextBytes(w3);
+        return new NnueEvaluator(hidden1, hidden2, CLIP * hidden2, w1, b1,
+                                 w2, b2, w3, 0);
+    }
+
+    /** {@inheritDoc}  The dense layers cost far more than a probe. */
+    @Override
+    public boolean worthCaching() {
+        return true;
+    }
+
+    @Override
+    public int evaluate(Board board) {
+        Accumulator acc = _accumulators.get();
+        short[] values = acc._values;
+        long red = board.pieces(RED), blue = board.pieces(BLUE);
+        for (long changed = red ^ acc._red; changed != 0;
+             changed &= changed - 1) {
+            int bit = Squares.first(changed);
+            update(values, bit, (red & (1L << bit)) != 0);
+        }
+        for (long changed = blue ^ acc._blue; changed != 0;
+             changed &= changed - 1) {
+            int bit = Squares.first(changed);
+            update(values, Squares.SIZE + bit, (blue & (1L << bit)) != 0);
+        }
+        acc._red = red;
+        acc._blue = blue;
+        return output(values, acc._clipped);
+    }
+
+    /** Add the first-layer weights of input INPUT to VALUES if ON, and
+     *  otherwise subtract them. */
+    private void update(short[] values, int input, boolean on) {
+        short[] w1 = _w1;
+        int row = input * _hidden1;
+        if (on) {
+            for (int i = 0; i < values.length; i += 1) {
+                values[i] += w1[row + i];
+            }
+        } else {
+            for (int i = 0; i < values.length; i += 1) {
+                values[i] -= w1[row + i];
+            }
+        }
+    }
+
+    /** Return the value computed by the layers after the first from the
+     *  accumulator VALUES, using CLIPPED (of length HIDDEN1) as scratch
+     *  space. */
+    private int output(short[] values, int[] clipped) {
+        for (int i = 0; i < clipped.length; i += 1) {
+            clipped[i] = Math.min(Math.max(values[i], 0), CLIP);
+        }
+        int[] w2 = _w2;
+        int n = _hidden1;
+        int total = _b3;
+        for (int j = 0; j < _hidden2; j += 1) {
+            int sum = _b2[j];
+            int row = j * n;
+            for (int i = 0; i < n; i += 1) {
+                sum += clipped[i] * w2[row + i];
+            }
+            total += Math.min(Math.max(sum >> SHIFT, 0), CLIP) * _w3[j];
+        }
+        return total / _outputScale;
+    }
+
+    /** The state of one thread's evaluations. */
+    private class Accumulator {
+        /** The red and blue pieces of the last position evaluated. */
+        private long _red, _blue;
+        /** The first layer's outputs for that position. */
+        private final short[] _values = _b1.clone();
+        /** Scratch space for clipped first-layer outputs. */
+        private final int[] _clipped = new int[_hidden1];
+    }
+
+    /** Numbers of units in the hidden layers. */
+    private final int _hidden1, _hidden2;
+    /** Divisor of the output. */
+    private final int _outputScale;
+    /** First-layer weights, INPUTS rows of _hidden1, and biases. */
+    private final short[] _w1, _b1;
+    /** Second-layer weights, _hidden2 rows of _hidden1, widened to int
+     *  for the dense loop in output. */
+    private final int[] _w2;
+    /** Output weights. */
+    private final byte[] _w3;
+    /** Second-layer biases. */
+    private final int[] _b2;
+    /** Output bias. */
+    private final int _b3;
+    /** Each thread's accumulator.  The empty position's is _b1. */
+    private final ThreadLocal<Accumulator> _accumulators =
+        ThreadLocal.withInitial(Accumulator::new);
+}
@@ -0,0 +1,104 @@
+/* Skeleton code copyright (C) 2008, 2022 Paul N. Hilfinger and the
+ * Regents of the University of California.  Do not distribute this or any
+ * derivative work without permission. */
+
+package ataxx;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/** Tests of the NnueEvaluator class.
+ *  @author J. Masoudi
+ */
+public class NnueEvaluatorTest {
+
+    @Test
+    public void testMaterial() {
+        Evaluator eval = NnueEvaluator.material();
+        walk(20, 3, (b) -> {
+            assertEquals("wrong material", Evaluator.MATERIAL.evaluate(b),
+                         eval.evaluate(b));
+        });
+    }
+
+    @Test
+    public void testIncremental() {
+        Evaluator eval = NnueEvaluator.random(32, 8, 5);
+        walk(20, 7, (b) -> {
+            assertEquals("incremental evaluation differs",
+                         NnueEvaluator.random(32, 8, 5).evaluate(b),
+                         eval.evaluate(b));
+        });
+    }
+
+    @Test
+    public void testSaveLoad() throws IOException {
+        NnueEvaluator eval = NnueEvaluator.random(16, 4, 11);
+        File file = File.createTempFile("ataxx", ".nnue");
+        try {
+            eval.save(file.getPath());
+            Evaluator loaded = NnueEvaluator.load(file.getPath());
+            walk(5, 13, (b) -> {
+                assertEquals("loaded network differs", eval.evaluate(b),
+                             loaded.evaluate(b));
+            });
+            Files.write(file.toPath(), new byte[] { 1, 2, 3, 4, 5, 6 });
+            try {
+                NnueEvaluator.load(file.getPath());
+                fail("malformed network file loaded");
+            } catch (IOException excp) {
+                /* Expected. */
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testSearch() {
+        for (int k = 0; k < 10; k += 1) {
+            Board b = SearcherTest.randomPosition(k + 4, k);
+            if (b.getWinner() != null) {
+                continue;
+            }
+            Searcher material = new Searcher(), network = new Searcher();
+            network.setEvaluator(NnueEvaluator.material());
+            material.findMove(new Board(b), 3);
+            network.findMove(new Board(b), 3);
+            assertEquals("network search differs", material.value(),
+                         network.value());
+        }
+    }
+
+    /** A check of a position. */
+    interface Check {
+        /** Check the position on B. */
+        void check(Board b);
+    }
+
+    /** Apply CHECK to the positions of GAMES random games played with
+     *  random moves chosen using SEED, after each move and after each
+     *  undo of some of the moves. */
+    private static void walk(int games, long seed, Check check) {
+        Random random = new Random(seed);
+        int[] moves = new int[Board.MAX_LEGAL_MOVES];
+        for (int g = 0; g < games; g += 1) {
+            Board b = new Board();
+            while (b.computeWinner() == null) {
+                int n = b.legalMoves(moves, 0);
+                b.makeMoveUnchecked(moves[random.nextInt(n)]);
+                check.check(b);
+                if (random.nextInt(4) == 0 && b.numMoves() > 1) {
+                    b.undoUnchecked();
+                    check.check(b);
+                }
+            }
+        }
+    }
+}
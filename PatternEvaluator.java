@@ -0,0 +1,358 @@
+/* Skeleton code copyright (C) 2008, 2022 Paul N. Hilfinger and the
+ * Regents of the University of California.  Do not distribute this or any
+ * derivative work without permission. */
+
+package ataxx;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import static ataxx.PieceColor.*;
+import static ataxx.Move.SIDE;
+
+/** An evaluation that adds to the material difference learned values of
+ *  the contents of every 3x3 window of the board, from the point of
+ *  view of the player to move.
+ *
+ *  A window's contents are encoded as a base-3 index, with digit K (of
+ *  weight 3**K) 0 for an empty (or blocked) cell K, 1 for red, and 2 for
+ *  blue.  The tables give values for red to move; for blue to move, a
+ *  copy of them indexed with the colors exchanged is used.  The 25
+ *  windows fall into CLASSES classes under the symmetries of the board
+ *  (corner, edge, center, etc.), and the windows of a class share one
+ *  table: each window numbers its cells in the order of the cells of its
+ *  class's representative under the symmetry that maps one to the
+ *  other.  Since a symmetry fixing a representative (the diagonal
+ *  reflection of a corner window, say) permutes its cells, contents
+ *  that such a symmetry relates all get the value of the least index
+ *  among them, so that symmetric positions have the same value.  The
+ *  tables are one flat array of shorts, in units of 1/SCALE piece, and
+ *  are fitted to sample positions by fit, saved by save, and loaded
+ *  from a file by load.
+ *
+ *  Each thread keeps the window indices of the last position it
+ *  evaluated, and updates only the windows containing squares that have
+ *  changed since, at most nine per square.
+ *  @author J. Masoudi
+ */
+class PatternEvaluator implements Evaluator {
+
+    /** Number of cells in a window. */
+    static final int CELLS = 9;
+
+    /** Number of windows. */
+    static final int WINDOWS = (SIDE - 2) * (SIDE - 2);
+
+    /** Number of contents of a window (3**CELLS). */
+    static final int PATTERNS = 19683;
+
+    /** Number of classes of windows. */
+    static final int CLASSES = 6;
+
+    /** Table values are in units of 1/SCALE piece. */
+    static final int SCALE = 16;
+
+    /** First int of a pattern file ("PAT3"). */
+    static final int MAGIC = 0x50415433;
+
+    /** An evaluator with the tables WEIGHTS (CLASSES tables of
+     *  PATTERNS), except that the value of each index is that of the
+     *  least index among its images under the symmetries that fix its
+     *  class's representative. */
+    PatternEvaluator(short[] weights) {
+        _weights = new short[weights.length];
+        _swapped = new short[weights.length];
+        for (int c = 0; c < CLASSES; c += 1) {
+            int start = c * PATTERNS;
+            for (int i = 0; i < PATTERNS; i += 1) {
+                int least = i;
+                for (int[] perm : STABILIZER[c]) {
+                    least = Math.min(least, permute(i, perm));
+                }
+                _weights[start + i] = weights[start + least];
+            }
+        }
+        for (int i = 0; i < PATTERNS; i += 1) {
+            int j = permute(i, null);
+            for (int c = 0; c < CLASSES; c += 1) {
+                _swapped[c * PATTERNS + i] = _weights[c * PATTERNS + j];
+            }
+        }
+    }
+
+    /** Return INDEX with its digit K moved to position PERM[K], or with
+     *  its colors exchanged if PERM is null. */
+    private static int permute(int index, int[] perm) {
+        int result = 0;
+        for (int k = 0; k < CELLS; k += 1, index /= 3) {
+            int d = index % 3;
+            if (perm == null) {
+                result += SWAP[d] * POWERS[k];
+            } else {
+                result += d * POWERS[perm[k]];
+            }
+        }
+        return result;
+    }
+
+    /** Return the evaluator whose tables are in the file named FILE,
+     *  which is mapped into memory to read it.  The file holds,
+     *  little-endian, the ints MAGIC, CLASSES, and PATTERNS, and then the
+     *  tables as shorts. */
+    static PatternEvaluator load(String file) throws IOException {
+        try (FileChannel channel =
+             FileChannel.open(Path.of(file), StandardOpenOption.READ)) {
+            ByteBuffer buf =
+                channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buf.order(ByteOrder.LITTLE_ENDIAN);
+            if (buf.remaining() != 3 * Integer.BYTES
+                + Short.BYTES * CLASSES * PATTERNS
+                || buf.getInt() != MAGIC || buf.getInt() != CLASSES
+                || buf.getInt() != PATTERNS) {
+                throw new IOException("not a pattern file: " + file);
+            }
+            short[] weights = new short[CLASSES * PATTERNS];
+            buf.asShortBuffer().get(weights);
+            return new PatternEvaluator(weights);
+        }
+    }
+
+    /** Write my tables to the file named FILE, in the format read by
+     *  load. */
+    void save(String file) throws IOException {
+        ByteBuffer buf =
+            ByteBuffer.allocate(3 * Integer.BYTES
+                                + Short.BYTES * _weights.length);
+        buf.order(ByteOrder.LITTLE_ENDIAN);
+        buf.putInt(MAGIC).putInt(CLASSES).putInt(PATTERNS);
+        for (short w : _weights) {
+            buf.putShort(w);
+        }
+        buf.flip();
+        try (FileChannel channel =
+             FileChannel.open(Path.of(file), StandardOpenOption.WRITE,
+                              StandardOpenOption.CREATE,
+                              StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buf.hasRemaining()) {
+                channel.write(buf);
+            }
+        }
+    }
+
+    /** Return an evaluator whose tables are fitted to the values (from
+     *  red's point of view, in pieces) TARGETS[I] of the positions
+     *  POSITIONS[I], by EPOCHS passes of stochastic gradient descent on
+     *  the squared error.  Each position is used in all its
+     *  orientations.  The tables start at 0, so that the fit begins at
+     *  the material evaluation. */
+    static PatternEvaluator fit(Board[] positions, int[] targets,
+                                int epochs) {
+        float[] weights = new float[CLASSES * PATTERNS];
+        int[] index = new int[WINDOWS];
+        for (int e = 0; e < epochs; e += 1) {
+            for (int i = 0; i < positions.length; i += 1) {
+                Board b = positions[i];
+                PieceColor who = b.whoseMove();
+                long mine = b.pieces(who), theirs = b.pieces(who.opposite());
+                int target = who == RED ? targets[i] : -targets[i];
+                for (int t = 0; t < Symmetry.COUNT; t += 1) {
+                    step(weights, index, Symmetry.transform(t, mine),
+                         Symmetry.transform(t, theirs), target);
+                }
+            }
+        }
+        short[] result = new short[weights.length];
+        for (int i = 0; i < weights.length; i += 1) {
+            result[i] = (short) Math.max(Short.MIN_VALUE,
+                                         Math.min(Short.MAX_VALUE,
+                                                  Math.round(SCALE
+                                                             * weights[i])));
+        }
+        return new PatternEvaluator(result);
+    }
+
+    /** Adjust WEIGHTS (in pieces) one gradient step toward the value
+     *  TARGET, from the point of view of the player to move, of the
+     *  position in which that player's pieces are MINE and the other's
+     *  are THEIRS, using INDEX as scratch space. */
+    private static void step(float[] weights, int[] index, long mine,
+                             long theirs, int target) {
+        indices(mine, theirs, index);
+        float error = target - Squares.count(mine) + Squares.count(theirs);
+        for (int w = 0; w < WINDOWS; w += 1) {
+            error -= weights[WINDOW_CLASS[w] * PATTERNS + index[w]];
+        }
+        float delta = RATE * error;
+        for (int w = 0; w < WINDOWS; w += 1) {
+            weights[WINDOW_CLASS[w] * PATTERNS + index[w]] += delta;
+        }
+    }
+
+    /** Set INDEX[W] to the index of window W of the position with red
+     *  pieces RED and blue pieces BLUE, for each window W.  (The tables
+     *  are indexed as if red were to move.) */
+    static void indices(long red, long blue, int[] index) {
+        for (int w = 0; w < WINDOWS; w += 1) {
+            int i = 0;
+            for (int k = CELLS - 1; k >= 0; k -= 1) {
+                i = 3 * i + state(red, blue, WINDOW_BITS[w][k]);
+            }
+            index[w] = i;
+        }
+    }
+
+    /** Return the digit for the square with bit number BIT in windows
+     *  of the position with red pieces RED and blue pieces BLUE. */
+    private static int state(long red, long blue, int bit) {
+        return (int) ((red >>> bit) & 1) + 2 * (int) ((blue >>> bit) & 1);
+    }
+
+    @Override
+    public int evaluate(Board board) {
+        Windows windows = _windows.get();
+        int[] index = windows._index;
+        long red = board.pieces(RED), blue = board.pieces(BLUE);
+        long oldRed = windows._red, oldBlue = windows._blue;
+        for (long changed = (red ^ oldRed) | (blue ^ oldBlue);
+             changed != 0; changed &= changed - 1) {
+            int bit = Squares.first(changed);
+            int delta = state(red, blue, bit) - state(oldRed, oldBlue, bit);
+            for (int j = INCIDENT_START[bit]; j < INCIDENT_START[bit + 1];
+                 j += 1) {
+                index[INCIDENT_WINDOW[j]] += delta * INCIDENT_POWER[j];
+            }
+        }
+        windows._red = red;
+        windows._blue = blue;
+        boolean redToMove = board.whoseMove() == RED;
+        short[] weights = redToMove ? _weights : _swapped;
+        int total = 0;
+        for (int w = 0; w < WINDOWS; w += 1) {
+            total += weights[WINDOW_OFFSET[w] + index[w]];
+        }
+        total /= SCALE;
+        return Squares.count(red) - Squares.count(blue)
+            + (redToMove ? total : -total);
+    }
+
+    /** The state of one thread's evaluations. */
+    private static class Windows {
+        /** The red and blue pieces of the last position evaluated. */
+        private long _red, _blue;
+        /** The index of each window in that position.  Initially, that of
+         *  an empty window, 0. */
+        private final int[] _index = new int[WINDOWS];
+    }
+
+    /** Gradient step size in fit, per unit of error, per window. */
+    private static final float RATE = 0.005f / WINDOWS;
+
+    /** Powers of 3 by cell. */
+    private static final int[] POWERS = new int[CELLS];
+
+    /** The digits for empty, red, and blue cells with the colors
+     *  exchanged. */
+    private static final int[] SWAP = { 0, 2, 1 };
+
+    /** WINDOW_BITS[W][K] is the bit number of cell K of window W. */
+    private static final int[][] WINDOW_BITS = new int[WINDOWS][CELLS];
+
+    /** The class of each window, and the index in the tables of the
+     *  start of its class's table. */
+    private static final int[] WINDOW_CLASS = new int[WINDOWS],
+        WINDOW_OFFSET = new int[WINDOWS];
+
+    /** For each square with bit number BIT, the windows containing it are
+     *  INCIDENT_WINDOW[J] for INCIDENT_START[BIT] <= J <
+     *  INCIDENT_START[BIT + 1], in which it is the cell with weight
+     *  INCIDENT_POWER[J]. */
+    private static final int[] INCIDENT_START = new int[Squares.SIZE + 1],
+        INCIDENT_WINDOW = new int[WINDOWS * CELLS],
+        INCIDENT_POWER = new int[WINDOWS * CELLS];
+
+    /** STABILIZER[C] holds, for each symmetry other than the identity
+     *  that fixes the representative of class C, the permutation of the
+     *  cells of the representative it makes: cell K goes to cell
+     *  STABILIZER[C][J][K]. */
+    private static final int[][][] STABILIZER = new int[CLASSES][][];
+
+    static {
+        /* Centers (row, column) of the representatives of the classes. */
+        int[][] representatives = {
+            { 1, 1 }, { 1, 2 }, { 1, 3 }, { 2, 2 }, { 2, 3 }, { 3, 3 },
+        };
+        for (int k = 0, p = 1; k < CELLS; k += 1, p *= 3) {
+            POWERS[k] = p;
+        }
+        for (int c = 0; c < CLASSES; c += 1) {
+            int rep = representatives[c][0] * SIDE + representatives[c][1];
+            int[][] perms = new int[Symmetry.COUNT][];
+            int n = 0;
+            for (int t = 0; t < Symmetry.COUNT; t += 1) {
+                if (t == Symmetry.IDENTITY
+                    || Symmetry.square(t, rep) != rep) {
+                    continue;
+                }
+                perms[n] = new int[CELLS];
+                for (int k = 0; k < CELLS; k += 1) {
+                    int d = Symmetry.square(t, rep + (k / 3 - 1) * SIDE
+                                            + k % 3 - 1) - rep;
+                    int dr = Math.floorDiv(d + 1, SIDE);
+                    perms[n][k] = 3 * (dr + 1) + d - dr * SIDE + 1;
+                }
+                n += 1;
+            }
+            STABILIZER[c] = Arrays.copyOf(perms, n);
+        }
+        int[] counts = new int[Squares.SIZE];
+        for (int w = 0; w < WINDOWS; w += 1) {
+            int center = (w / (SIDE - 2) + 1) * SIDE + w % (SIDE - 2) + 1;
+            search:
+            for (int c = 0; c < CLASSES; c += 1) {
+                int rep = representatives[c][0] * SIDE
+                    + representatives[c][1];
+                for (int t = 0; t < Symmetry.COUNT; t += 1) {
+                    if (Symmetry.square(t, rep) == center) {
+                        WINDOW_CLASS[w] = c;
+                        WINDOW_OFFSET[w] = c * PATTERNS;
+                        for (int k = 0; k < CELLS; k += 1) {
+                            int bit = rep + (k / 3 - 1) * SIDE + k % 3 - 1;
+                            WINDOW_BITS[w][k] = Symmetry.square(t, bit);
+                            counts[WINDOW_BITS[w][k]] += 1;
+                        }
+                        break search;
+                    }
+                }
+            }
+        }
+        for (int bit = 0; bit < Squares.SIZE; bit += 1) {
+            INCIDENT_START[bit + 1] = INCIDENT_START[bit] + counts[bit];
+        }
+        int[] next = INCIDENT_START.clone();
+        for (int w = 0; w < WINDOWS; w += 1) {
+            for (int k = 0; k < CELLS; k += 1) {
+                int bit = WINDOW_BITS[w][k];
+                INCIDENT_WINDOW[next[bit]] = w;
+                INCIDENT_POWER[next[bit]] = POWERS[k];
+                next[bit] += 1;
+            }
+        }
+    }
+
+    /** The tables, CLASSES tables of PATTERNS values of the player to
+     *  move, indexed as if red were to move. */
+    private final short[] _weights;
+
+    /** The values of _weights, indexed as if blue were to move: with the
+     *  colors in each index exchanged. */
+    private final short[] _swapped;
+
+    /** Each thread's window indices. */
+    private final ThreadLocal<Windows> _windows =
+        ThreadLocal.withInitial(Windows::new);
+}
@@ -0,0 +1,149 @@
+/* Skeleton code copyright (C) 2008, 2022 Paul N. Hilfinger and the
+ * Regents of the University of California.  Do not distribute this or any
+ * derivative work without permission. */
+
+package ataxx;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+
+import org.junit.Test;
+
+import static ataxx.PieceColor.*;
+import static ataxx.PatternEvaluator.*;
+import static org.junit.Assert.*;
+
+/** Tests of the PatternEvaluator class.
+ *  @author J. Masoudi
+ */
+public class PatternEvaluatorTest {
+
+    @Test
+    public void testIndices() {
+        Board b = new Board();
+        int[] index = new int[WINDOWS];
+        indices(b.pieces(RED), b.pieces(BLUE), index);
+        int nonEmpty = 0;
+        for (int i : index) {
+            if (i != 0) {
+                nonEmpty += 1;
+                assertTrue("corner window has wrong pieces",
+                           i == 1 || i == 2 || i == 6561 || i == 13122);
+            }
+        }
+        assertEquals("wrong number of occupied windows", 4, nonEmpty);
+    }
+
+    @Test
+    public void testZero() {
+        Evaluator eval = new PatternEvaluator(new short[CLASSES * PATTERNS]);
+        for (int k = 0; k < 40; k += 1) {
+            Board b = SearcherTest.randomPosition(k, k);
+            assertEquals("empty tables not material",
+                         Evaluator.MATERIAL.evaluate(b), eval.evaluate(b));
+        }
+    }
+
+    @Test
+    public void testIncremental() {
+        PatternEvaluator eval = randomTables(3);
+        Random random = new Random(5);
+        int[] moves = new int[Board.MAX_LEGAL_MOVES];
+        for (int g = 0; g < 10; g += 1) {
+            Board b = new Board();
+            while (b.computeWinner() == null) {
+                int n = b.legalMoves(moves, 0);
+                b.makeMoveUnchecked(moves[random.nextInt(n)]);
+                assertEquals("incremental evaluation differs",
+                             randomTables(3).evaluate(b), eval.evaluate(b));
+            }
+        }
+    }
+
+    @Test
+    public void testSymmetry() {
+        PatternEvaluator eval = randomTables(7);
+        /* The initial position is symmetric under these. */
+        int[] transforms = { 2, 6, 7 };
+        Random random = new Random(7);
+        int[] moves = new int[Board.MAX_LEGAL_MOVES];
+        for (int g = 0; g < 10; g += 1) {
+            Board b = new Board();
+            Board[] images = new Board[transforms.length];
+            for (int j = 0; j < images.length; j += 1) {
+                images[j] = new Board();
+            }
+            while (b.getWinner() == null) {
+                int move = moves[random.nextInt(b.legalMoves(moves, 0))];
+                b.makeMove(move);
+                for (int j = 0; j < images.length; j += 1) {
+                    images[j].makeMove(Symmetry.move(transforms[j], move));
+                }
+                if (b.getWinner() != null) {
+                    break;
+                }
+                int value = eval.evaluate(b);
+                for (Board image : images) {
+                    assertEquals("symmetric position differs", value,
+                                 eval.evaluate(image));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testFit() {
+        Board[] positions = new Board[30];
+        int[] targets = new int[positions.length];
+        Evaluator positional = new PositionalEvaluator();
+        for (int k = 0; k < positions.length; k += 1) {
+            positions[k] = SearcherTest.randomPosition(k + 5, k);
+            targets[k] = positional.evaluate(positions[k]);
+        }
+        PatternEvaluator eval = fit(positions, targets, 30);
+        double before = 0, after = 0;
+        for (int k = 0; k < positions.length; k += 1) {
+            before += Math.abs(Evaluator.MATERIAL.evaluate(positions[k])
+                               - targets[k]);
+            after += Math.abs(eval.evaluate(positions[k]) - targets[k]);
+        }
+        assertTrue("fit did not improve on material", after < before);
+    }
+
+    @Test
+    public void testSaveLoad() throws IOException {
+        PatternEvaluator eval = randomTables(11);
+        File file = File.createTempFile("ataxx", ".pat");
+        try {
+            eval.save(file.getPath());
+            Evaluator loaded = PatternEvaluator.load(file.getPath());
+            for (int k = 0; k < 20; k += 1) {
+                Board b = SearcherTest.randomPosition(k, k);
+                assertEquals("loaded tables differ", eval.evaluate(b),
+                             loaded.evaluate(b));
+            }
+            Files.write(file.toPath(), new byte[] { 1, 2, 3 });
+            try {
+                PatternEvaluator.load(file.getPath());
+                fail("malformed pattern file loaded");
+            } catch (IOException excp) {
+                /* Expected. */
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    /** Return an evaluator with pseudo-random tables chosen using
+     *  SEED. */
+    private static PatternEvaluator randomTables(long seed) {
+        Random random = new Random(seed);
+        short[] weights = new short[CLASSES * PATTERNS];
+        for (int i = 0; i < weights.length; i += 1) {
+            weights[i] = (short) (random.nextInt(2 * SCALE + 1) - SCALE);
+        }
+        return new PatternEvaluator(weights);
+    }
+}
@@ -0,0 +1,217 @@
+/* Skeleton code copyright (C) 2008, 2022 Paul N. Hilfinger and the
+ * Regents of the University of California.  Do not distribute this or any
+ * derivative work without permission. */
+
+package ataxx;
+
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BiConsumer;
+
+/** Move-path enumeration ("perft"): counts of the positions reachable in
+ *  exactly a given number of plies.  Comparing these counts against
+ *  known values is a check on the move generator and on make/undo, and
+ *  timing them gives a raw nodes-per-second figure for Board.
+ *
+ *  Finished games have no moves, so they contribute nothing to counts
+ *  of positions further on.  A forced pass counts as a move.
+ *
+ *  Can be run standalone:
+ *       java ataxx.Perft [ --divide ] [ --parallel ] [ --merged ] DEPTH
+ *                        [ SETUP ... ]
+ *  where each SETUP is either a block square (CR, as for the block
+ *  command) or a move (C0R0-C1R1 or -), applied in order to the initial
+ *  position.
+ *  @author J. Masoudi
+ */
+class Perft {
+
+    /** A new counter.  Extends onto the same square are counted once iff
+     *  MERGECLONES (see Board.legalMoves). */
+    Perft(boolean mergeClones) {
+        _mergeClones = mergeClones;
+        _moves = new int[0][];
+    }
+
+    /** Return the number of positions exactly DEPTH plies from BOARD.
+     *  BOARD is used as scratch space and is restored before returning. */
+    long count(Board board, int depth) {
+        if (_moves.length < depth) {
+            _moves = new int[depth][Board.MAX_LEGAL_MOVES];
+        }
+        return count(board, depth, 0);
+    }
+
+    /** Return the number of positions exactly DEPTH plies from BOARD
+     *  (which must be at least 1).  If REPORT is not null, call
+     *  REPORT.accept(M, N) for each move M from BOARD, in order, where N
+     *  is the number of positions DEPTH-1 plies after M.  If PARALLEL,
+     *  count the subtrees of the moves from BOARD concurrently, in the
+     *  common ForkJoinPool.  BOARD is not modified. */
+    long divide(Board board, int depth, boolean parallel,
+                BiConsumer<Move, Long> report) {
+        int[] moves = new int[Board.MAX_LEGAL_MOVES];
+        int n = board.computeWinner() != null
+            ? 0 : board.legalMoves(moves, 0, _mergeClones);
+        ArrayList<Subtree> tasks = new ArrayList<>();
+        for (int i = 0; i < n; i += 1) {
+            tasks.add(new Subtree(board, moves[i], depth - 1, _mergeClones));
+        }
+        if (parallel) {
+            for (Subtree task : tasks) {
+                ForkJoinPool.commonPool().execute(task);
+            }
+        }
+        long total = 0;
+        for (Subtree task : tasks) {
+            long count = parallel ? task.join() : task.compute();
+            if (report != null) {
+                report.accept(task.move(), count);
+            }
+            total += count;
+        }
+        return total;
+    }
+
+    /** Return the number of positions exactly DEPTH plies from BOARD,
+     *  using _moves[PLY] for the moves from BOARD. */
+    private long count(Board board, int depth, int ply) {
+        if (depth == 0) {
+            return 1;
+        }
+        if (board.computeWinner() != null) {
+            return 0;
+        }
+        int[] moves = _moves[ply];
+        int n = board.legalMoves(moves, 0, _mergeClones);
+        if (depth == 1) {
+            return n;
+        }
+        long total = 0;
+        for (int i = 0; i < n; i += 1) {
+            board.makeMoveUnchecked(moves[i]);
+            total += count(board, depth - 1, ply + 1);
+            board.undoUnchecked();
+        }
+        return total;
+    }
+
+    /** The count for the subtree below one move from the root, with its
+     *  own copy of the board and its own Perft. */
+    private static class Subtree extends RecursiveTask<Long> {
+
+        /** Version of my serialized form, which is never used. */
+        private static final long serialVersionUID = 1L;
+
+        /** The task of counting the positions DEPTH plies after making
+         *  the packed move MOVE on BOARD, counting extends onto the same
+         *  square once iff MERGECLONES. */
+        Subtree(Board board, int move, int depth, boolean mergeClones) {
+            _board = new Board(board);
+            _move = _board.toMove(move);
+            _board.makeMove(move);
+            _depth = depth;
+            _perft = new Perft(mergeClones);
+        }
+
+        /** Return the move at the root of my subtree. */
+        Move move() {
+            return _move;
+        }
+
+        @Override
+        protected Long compute() {
+            return _perft.count(_board, _depth);
+        }
+
+        /** The position after _move. */
+        private final Board _board;
+        /** The move leading to my subtree. */
+        private final Move _move;
+        /** Depth of my subtree. */
+        private final int _depth;
+        /** Counter for my subtree. */
+        private final Perft _perft;
+    }
+
+    /** Run perft as described in the class comment, with ARGS as the
+     *  command-line arguments. */
+    public static void main(String[] args) {
+        boolean divide, parallel, merged;
+        divide = parallel = merged = false;
+        int k;
+        for (k = 0; k < args.length && args[k].startsWith("--"); k += 1) {
+            switch (args[k]) {
+            case "--divide":
+                divide = true;
+                break;
+            case "--parallel":
+                parallel = true;
+                break;
+            case "--merged":
+                merged = true;
+                break;
+            default:
+                usage();
+            }
+        }
+        if (k == args.length || !args[k].matches("\\d+")) {
+            usage();
+        }
+        int depth = Integer.parseInt(args[k]);
+        Board board = new Board();
+        try {
+            for (k += 1; k < args.length; k += 1) {
+                if (args[k].matches("[a-g][1-7]")) {
+                    board.setBlock(args[k]);
+                } else if (Move.move(args[k]) != null) {
+                    board.makeMove(Move.move(args[k]));
+                } else {
+                    usage();
+                }
+            }
+        } catch (GameException excp) {
+            System.err.println(excp.getMessage());
+            System.exit(1);
+        }
+        System.out.println(board.toString(true));
+        System.out.println(new Perft(merged).run(board, depth, divide,
+                                                 parallel));
+    }
+
+    /** Return a report of the count of positions DEPTH plies from BOARD
+     *  with the time taken, preceded by counts for each move from BOARD
+     *  iff DIVIDE.  Count in parallel iff PARALLEL. */
+    String run(Board board, int depth, boolean divide, boolean parallel) {
+        StringBuilder out = new StringBuilder();
+        long start = System.nanoTime();
+        long total;
+        if (depth == 0) {
+            total = 1;
+        } else if (divide || parallel) {
+            total = divide(board, depth, parallel, !divide ? null
+                           : (move, count) -> out.append(
+                                 String.format("%s: %d%n", move, count)));
+        } else {
+            total = count(new Board(board), depth);
+        }
+        double secs = Math.max(System.nanoTime() - start, 1) * 1e-9;
+        out.append(String.format("perft(%d) = %d  [%.3f sec, %.0f nodes/sec]",
+                                 depth, total, secs, total / secs));
+        return out.toString();
+    }
+
+    /** Print a usage message and exit. */
+    private static void usage() {
+        System.err.println("Usage: java ataxx.Perft [ --divide ] [ --parallel ]"
+                           + " [ --merged ] DEPTH [ SETUP ... ]");
+        System.exit(1);
+    }
+
+    /** True iff extends onto the same square are counted once. */
+    private final boolean _mergeClones;
+
+    /** Move buffers, indexed by ply. */
+    private int[][] _moves;
+}
@@ -0,0 +1,63 @@
+/* Skeleton code copyright (C) 2008, 2022 Paul N. Hilfinger and the
+ * Regents of the University of California.  Do not distribute this or any
+ * derivative work without permission. */
+
+package ataxx;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/** Tests of the move generator by move-path enumeration.
+ *  @author J. Masoudi
+ */
+public class PerftTest {
+
+    /** Counts from the initial position, with extends onto the same
+     *  square counted once (the usual convention for Ataxx), for depths
+     *  1, 2, ....  Sixteen games end after four plies, when red has
+     *  lost all its pieces; at depth 5 they count nothing, rather than
+     *  once each (which would give 4752684). */
+    private static final long[] INITIAL_MERGED = {
+        16, 256, 6460, 155888, 4752668
+    };
+
+    /** Counts from the initial position, with one extend per source. */
+    private static final long[] INITIAL_ALL = {
+        16, 256, 6652, 165656, 5313188
+    };
+
+    @Test
+    public void testInitial() {
+        Board b = new Board();
+        for (int d = 1; d <= INITIAL_MERGED.length; d += 1) {
+            assertEquals("wrong merged count at depth " + d,
+                         INITIAL_MERGED[d - 1], new Perft(true).count(b, d));
+        }
+        for (int d = 1; d <= INITIAL_ALL.length; d += 1) {
+            assertEquals("wrong count at depth " + d,
+                         INITIAL_ALL[d - 1], new Perft(false).count(b, d));
+        }
+        assertEquals("board not restored", new Board(), b);
+    }
+
+    @Test
+    public void testDivide() {
+        Board b = new Board();
+        b.setBlock('c', '3');
+        b.makeMove('a', '7', 'a', '6');
+        Perft perft = new Perft(true);
+        long serial = perft.count(b, 4);
+        long[] sum = new long[2];
+        long total = perft.divide(b, 4, true, (move, count) -> {
+            assertTrue("illegal root move", b.legalMove(move));
+            sum[0] += count;
+            sum[1] += 1;
+        });
+        assertEquals("parallel divide disagrees with serial count",
+                     serial, total);
+        assertEquals("divide counts do not add up", total, sum[0]);
+        assertEquals("wrong number of root moves",
+                     new Perft(true).count(b, 1), sum[1]);
+    }
+}
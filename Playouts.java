@@ -0,0 +1,143 @@
+/* Skeleton code copyright (C) 2008, 2022 Paul N. Hilfinger and the
+ * Regents of the University of California.  Do not distribute this or any
+ * derivative work without permission. */
+
+package ataxx;
+
+import static ataxx.PieceColor.*;
+
+/** A batch of independent games played out to the end with uniformly
+ *  random moves, for Monte Carlo evaluation.  The games are kept as
+ *  packed bitboards in parallel arrays, one entry per game, and each is
+ *  played out with its state in local variables, so that the inner loop
+ *  touches a few longs and no objects.  Random numbers come from a
+ *  single xorshift generator, each step supplying both the destination
+ *  and, for a jump, the source of a move.  Unlike a Board, a game here
+ *  keeps no undo record, key, or notifier.
+ *  @author J. Masoudi
+ */
+class Playouts {
+
+    /** A batch of SIZE games, whose random moves are chosen using SEED
+     *  (which must not be 0). */
+    Playouts(int size, long seed) {
+        _mine = new long[size];
+        _theirs = new long[size];
+        _empty = new long[size];
+        _jumps = new int[size];
+        _redToMove = new boolean[size];
+        _state = seed == 0 ? 1 : seed;
+    }
+
+    /** Return the number of games in the batch. */
+    int size() {
+        return _mine.length;
+    }
+
+    /** Set game K of the batch to the position on BOARD. */
+    void set(int k, Board board) {
+        set(k, board.pieces(RED), board.pieces(BLUE), board.empties(),
+            board.numJumps(), board.whoseMove() == RED);
+    }
+
+    /** Set game K of the batch to the position with red pieces RED, blue
+     *  pieces BLUE, empty squares EMPTY, and NUMJUMPS consecutive jumps
+     *  just made, with red to move iff REDTOMOVE. */
+    void set(int k, long red, long blue, long empty, int numJumps,
+             boolean redToMove) {
+        _mine[k] = redToMove ? red : blue;
+        _theirs[k] = redToMove ? blue : red;
+        _empty[k] = empty;
+        _jumps[k] = numJumps;
+        _redToMove[k] = redToMove;
+    }
+
+    /** Play out every game of the batch, storing the result of game K in
+     *  RESULTS[K]: 1 if red wins, -1 if blue wins, and 0 for a draw.
+     *  The games are left at their final positions.  Return the total
+     *  number of moves made (counting passes). */
+    long run(int[] results) {
+        long moves = 0;
+        long state = _state;
+        for (int k = 0; k < size(); k += 1) {
+            long me = _mine[k], you = _theirs[k], open = _empty[k];
+            int jumps = _jumps[k];
+            boolean redToMove = _redToMove[k];
+            while (true) {
+                long targets = Squares.reach(me) & open;
+                if (me == 0 || you == 0 || jumps >= Board.JUMP_LIMIT
+                    || targets == 0 && (Squares.reach(you) & open) == 0) {
+                    break;
+                }
+                if (targets != 0) {
+                    state ^= state << 13;
+                    state ^= state >>> 7;
+                    state ^= state << 17;
+                    int to = Squares.nth(targets, pick(state, targets));
+                    long bit = 1L << to;
+                    long near = Squares.clones(to);
+                    if ((near & me) != 0) {
+                        jumps = 0;
+                    } else {
+                        long sources = Squares.jumps(to) & me;
+                        long from =
+                            1L << Squares.nth(sources,
+                                              pick(state >>> 32, sources));
+                        me ^= from;
+                        open |= from;
+                        jumps += 1;
+                    }
+                    long captured = near & you;
+                    me |= bit | captured;
+                    you ^= captured;
+                    open ^= bit;
+                }
+                long t = me;
+                me = you;
+                you = t;
+                redToMove = !redToMove;
+                moves += 1;
+            }
+            int difference = Squares.count(me) - Squares.count(you);
+            results[k] = Integer.signum(redToMove ? difference : -difference);
+            _mine[k] = me;
+            _theirs[k] = you;
+            _empty[k] = open;
+            _jumps[k] = jumps;
+            _redToMove[k] = redToMove;
+        }
+        _state = state;
+        return moves;
+    }
+
+    /** Return the mean result, from red's point of view, of playing out
+     *  the position on BOARD size() times, using RESULTS (of length at
+     *  least size()) as scratch space. */
+    double evaluate(Board board, int[] results) {
+        for (int k = 0; k < size(); k += 1) {
+            set(k, board);
+        }
+        run(results);
+        long total = 0;
+        for (int k = 0; k < size(); k += 1) {
+            total += results[k];
+        }
+        return (double) total / size();
+    }
+
+    /** Return an index in the range 0 .. |SET| - 1, where SET is not
+     *  empty, chosen using the low 32 bits of the random value R. */
+    private static int pick(long r, long set) {
+        return (int) (((r & 0xffffffffL) * Squares.count(set)) >>> 32);
+    }
+
+    /** For each game, the pieces of the player to move and of the
+     *  other player, and the empty squares. */
+    private final long[] _mine, _theirs, _empty;
+    /** For each game, the number of consecutive jumps just made. */
+    private final int[] _jumps;
+    /** For each game, true iff red is to move. */
+    private final boolean[] _redToMove;
+    /** State of the xorshift generator. */
+    private long _state;
+}
@@ -0,0 +1,90 @@
+/* Skeleton code copyright (C) 2008, 2022 Paul N. Hilfinger and the
+ * Regents of the University of California.  Do not distribute this or any
+ * derivative work without permission. */
+
+package ataxx;
+
+import org.junit.Test;
+
+import static ataxx.PieceColor.*;
+import static org.junit.Assert.*;
+
+/** Tests of the Playouts class.
+ *  @author J. Masoudi
+ */
+public class PlayoutsTest {
+
+    @Test
+    public void testRun() {
+        Playouts batch = new Playouts(64, 17);
+        for (int k = 0; k < batch.size(); k += 1) {
+            batch.set(k, SearcherTest.randomPosition(k, k / 2));
+        }
+        int[] results = new int[batch.size()];
+        assertTrue("no moves made", batch.run(results) > 0);
+        for (int result : results) {
+            assertTrue("bad result " + result,
+                       result >= -1 && result <= 1);
+        }
+    }
+
+    @Test
+    public void testFinished() {
+        Board b = new Board();
+        makeMoves(b, "a7-b7", "a1-b1", "b7-c6", "g7-f7", "g1-f1");
+        Playouts batch = new Playouts(4, 5);
+        int[] results = new int[4];
+        for (int k = 0; k < 4; k += 1) {
+            batch.set(k, b.pieces(RED), 0, b.empties(), 0, k % 2 == 0);
+        }
+        assertEquals("moves made in finished games", 0, batch.run(results));
+        assertArrayEquals("finished games misjudged",
+                          new int[] { 1, 1, 1, 1 }, results);
+    }
+
+    @Test
+    public void testDeterministic() {
+        Board b = SearcherTest.randomPosition(3, 20);
+        int[] results1 = new int[32], results2 = new int[32];
+        Playouts batch1 = new Playouts(32, 99),
+            batch2 = new Playouts(32, 99);
+        for (int k = 0; k < 32; k += 1) {
+            batch1.set(k, b);
+            batch2.set(k, b);
+        }
+        assertEquals("different move counts", batch1.run(results1),
+                     batch2.run(results2));
+        assertArrayEquals("different results", results1, results2);
+    }
+
+    @Test
+    public void testEvaluate() {
+        Playouts batch = new Playouts(256, 3);
+        int[] results = new int[256];
+        double start = batch.evaluate(new Board(), results);
+        assertTrue("bad mean " + start, start >= -1 && start <= 1);
+        Board won = new Board();
+        makeMoves(won, "g1-e3", "a1-b2", "a7-c5");
+        Board after = new Board(won);
+        int[] moves = new int[Board.MAX_LEGAL_MOVES];
+        int n = after.legalMoves(moves, 0);
+        boolean found = false;
+        for (int i = 0; i < n && !found; i += 1) {
+            after.makeMoveUnchecked(moves[i]);
+            found = after.computeWinner() == won.whoseMove();
+            if (!found) {
+                after.undoUnchecked();
+            }
+        }
+        assertTrue("no winning move found (b2-d4 wins)", found);
+        double mean = batch.evaluate(after, results);
+        assertEquals("won position misjudged", -1.0, mean, 0.0);
+    }
+
+    /** Make MOVES on B. */
+    private static void makeMoves(Board b, String... moves) {
+        for (String move : moves) {
+            b.makeMove(Move.move(move));
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/* Skeleton code copyright (C) 2008, 2022 Paul N. Hilfinger and the
+ * Regents of the University of California.  Do not distribute this or any
+ * derivative work without permission. */
+
+package ataxx;
+
+import static ataxx.PieceColor.*;
+
+/** An evaluation that adds positional features to material, each
+ *  computed for both sides from the bitboards with a fixed number of
+ *  logical operations and counts:
+ *  <ul>
+ *  <li> clone mobility: the empty squares a side can extend to;
+ *  <li> jump mobility: the other empty squares it can jump to;
+ *  <li> exposure: its pieces next to an empty square the opponent can
+ *       reach, which the opponent could capture on its next move;
+ *  <li> safety: its pieces with no empty neighbor, which cannot be
+ *       captured until a neighbor is vacated by a jump;
+ *  <li> holes: the empty squares next to opponent pieces that it can
+ *       reach, where it could capture on its next move.
+ *  </ul>
+ *  The mobility sets are the frontiers that Board keeps up to date
+ *  incrementally.  Each feature has an opening and an endgame weight,
+ *  and the weight used is interpolated between them by the fraction of
+ *  the board that is still empty.
+ *  @author J. Masoudi
+ */
+class PositionalEvaluator implements Evaluator {
+
+    /** Features, as indices into feature vectors. */
+    static final int MATERIAL = 0, CLONE_MOBILITY = 1, JUMP_MOBILITY = 2,
+        EXPOSURE = 3, SAFETY = 4, HOLES = 5, FEATURES = 6;
+
+    /** Weights are in units of 1/SCALE piece. */
+    static final int SCALE = 16;
+
+    /** An evaluator with the default weights. */
+    PositionalEvaluator() {
+        this(OPENING_WEIGHTS, ENDGAME_WEIGHTS);
+    }
+
+    /** An evaluator with weights OPENING when the board is empty and
+     *  ENDGAME when it is full, each indexed by feature, in units of
+     *  1/SCALE piece. */
+    PositionalEvaluator(int[] opening, int[] endgame) {
+        _weights = new int[Squares.SIZE + 1][FEATURES];
+        for (int open = 0; open <= Squares.SIZE; open += 1) {
+            for (int f = 0; f < FEATURES; f += 1) {
+                _weights[open][f] = opening[f] * open
+                    + endgame[f] * (Squares.SIZE - open);
+            }
+        }
+    }
+
+    @Override
+    public int evaluate(Board board) {
+        long empty = board.empties();
+        long red = board.pieces(RED), blue = board.pieces(BLUE);
+        long redReach = board.frontier(RED),
+            blueReach = board.frontier(BLUE);
+        long redNear = Squares.clones(red), blueNear = Squares.clones(blue);
+        long unsafe = Squares.clones(empty);
+        int[] w = _weights[Squares.count(empty)];
+        long total =
+            w[MATERIAL] * (Squares.count(red) - Squares.count(blue))
+            + w[CLONE_MOBILITY] * (Squares.count(redNear & empty)
+                                   - Squares.count(blueNear & empty))
+            + w[JUMP_MOBILITY] * (Squares.count(redReach & ~redNear)
+                                  - Squares.count(blueReach & ~blueNear))
+            + w[EXPOSURE] * (Squares.count(red & Squares.clones(blueReach))
+                             - Squares.count(blue
+                                             & Squares.clones(redReach)))
+            + w[SAFETY] * (Squares.count(red & ~unsafe)
+                           - Squares.count(blue & ~unsafe))
+            + w[HOLES] * (Squares.count(redReach & blueNear)
+                          - Squares.count(blueReach & redNear));
+        return (int) (total / (SCALE * Squares.SIZE));
+    }
+
+    /** Return feature F of BOARD for the player WHO.  (The evaluation
+     *  computes all features at once; this is for testing.) */
+    static int feature(Board board, PieceColor who, int f) {
+        long empty = board.empties();
+        long mine = board.pieces(who), theirs = board.pieces(who.opposite());
+        long reach = board.frontier(who);
+        return switch (f) {
+        case MATERIAL -> Squares.count(mine);
+        case CLONE_MOBILITY -> Squares.count(Squares.clones(mine) & empty);
+        case JUMP_MOBILITY -> Squares.count(reach & ~Squares.clones(mine));
+        case EXPOSURE -> Squares.count(
+            mine & Squares.clones(board.frontier(who.opposite())));
+        case SAFETY -> Squares.count(mine & ~Squares.clones(empty));
+        default -> Squares.count(reach & Squares.clones(theirs));
+        };
+    }
+
+    /** Default weights by feature for an empty and for a full board, in
+     *  units of 1/SCALE piece. */
+    static final int[]
+        OPENING_WEIGHTS = { 16, 4, 1, -6, 4, 2 },
+        ENDGAME_WEIGHTS = { 16, 2, 0, -3, 1, 1 };
+
+    /** The weights, indexed by the number of empty squares and feature,
+     *  times Squares.SIZE. */
+    private final int[][] _weights;
+}
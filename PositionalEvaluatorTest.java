@@ -0,0 +1,90 @@
+/* Skeleton code copyright (C) 2008, 2022 Paul N. Hilfinger and the
+ * Regents of the University of California.  Do not distribute this or any
+ * derivative work without permission. */
+
+package ataxx;
+
+import org.junit.Test;
+
+import static ataxx.PieceColor.*;
+import static ataxx.PositionalEvaluator.*;
+import static org.junit.Assert.*;
+
+/** Tests of the PositionalEvaluator class.
+ *  @author J. Masoudi
+ */
+public class PositionalEvaluatorTest {
+
+    @Test
+    public void testInitialFeatures() {
+        Board b = new Board();
+        int[] expected = { 2, 6, 10, 0, 0, 0 };
+        for (int f = 0; f < FEATURES; f += 1) {
+            for (PieceColor who : new PieceColor[] { RED, BLUE }) {
+                assertEquals("wrong feature " + f, expected[f],
+                             feature(b, who, f));
+            }
+        }
+        assertEquals("initial position not even", 0,
+                     new PositionalEvaluator().evaluate(b));
+    }
+
+    @Test
+    public void testFeatures() {
+        Board b = new Board();
+        b.makeMove(Move.move("a7-b6"));
+        b.makeMove(Move.move("a1-b2"));
+        b.makeMove(Move.move("b6-b4"));
+        assertEquals("wrong material", 3, feature(b, RED, MATERIAL));
+        assertEquals("wrong exposure", 1, feature(b, RED, EXPOSURE));
+        assertEquals("wrong exposure", 2, feature(b, BLUE, EXPOSURE));
+        assertEquals("wrong holes", 5, feature(b, RED, HOLES));
+        assertEquals("wrong safety", 0, feature(b, BLUE, SAFETY));
+    }
+
+    @Test
+    public void testEvaluate() {
+        for (int f = 0; f < FEATURES; f += 1) {
+            int[] weights = new int[FEATURES];
+            weights[f] = SCALE;
+            Evaluator eval = new PositionalEvaluator(weights, weights);
+            for (int k = 0; k < 60; k += 1) {
+                Board b = SearcherTest.randomPosition(k, k);
+                if (b.computeWinner() != null) {
+                    continue;
+                }
+                assertEquals("wrong value of feature " + f,
+                             feature(b, RED, f) - feature(b, BLUE, f),
+                             eval.evaluate(b));
+            }
+        }
+    }
+
+    @Test
+    public void testTaper() {
+        int[] opening = new int[FEATURES], endgame = new int[FEATURES];
+        opening[MATERIAL] = 2 * SCALE;
+        Evaluator eval = new PositionalEvaluator(opening, endgame);
+        for (int k = 0; k < 60; k += 1) {
+            Board b = SearcherTest.randomPosition(k, k);
+            if (b.computeWinner() != null) {
+                continue;
+            }
+            int open = Squares.count(b.empties());
+            assertEquals("wrong tapered value",
+                         2 * (b.redPieces() - b.bluePieces()) * open
+                         / Squares.SIZE, eval.evaluate(b));
+        }
+    }
+
+    @Test
+    public void testSearch() {
+        Board b = SearcherTest.randomPosition(8, 37);
+        Searcher searcher = new Searcher();
+        searcher.setEvaluator(new PositionalEvaluator());
+        Move mv = searcher.findMove(b, 2);
+        b.makeMove(mv);
+        assertEquals("missed immediate win", b.whoseMove().opposite(),
+                     b.getWinner());
+    }
+}
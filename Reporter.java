@@ -4,6 +4,8 @@
 
 package ataxx;
 
+import java.util.List;
+
 /** An object that formats and sends messages and errors.
  */
 interface Reporter {
@@ -14,6 +16,18 @@ interface Reporter {
     /** Report move MOVE by PLAYER. */
     void announceMove(Move move, PieceColor player);
 
+    /** Report that a search by PLAYER to DEPTH plies found VALUE (from
+     *  red's point of view, as for Searcher.staticScore) with the
+     *  principal variation PV. */
+    void announcePV(PieceColor player, int depth, int value, List<Move> pv);
+
+    /** Report that PLAYER solved the position (see Solver), finding
+     *  VALUE, from red's point of view: the final piece difference if
+     *  EXACT, and otherwise 1, 0, or -1 for a red win, a draw, or a blue
+     *  win, with the principal variation PV. */
+    void announceSolved(PieceColor player, int value, boolean exact,
+                        List<Move> pv);
+
     /** Display a message indicated by FORMAT and ARGS, which have
      *  the same meaning as in String.format. */
     void msg(String format, Object... args);
@@ -0,0 +1,1119 @@
+/* Skeleton code copyright (C) 2008, 2022 Paul N. Hilfinger and the
+ * Regents of the University of California.  Do not distribute this or any
+ * derivative work without permission. */
+
+package ataxx;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import static ataxx.PieceColor.*;
+
+/** The game-tree search used by AI.  A Searcher owns all the storage
+ *  its search needs: moves are generated in packed form (see Move.pack)
+ *  into one preallocated buffer per ply, so that, once constructed, a
+ *  Searcher does no heap allocation per node.  Only the move finally
+ *  chosen at the root is converted into a Move.
+ *
+ *  Results of searches of interior positions are kept in a
+ *  TranspositionTable, which is retained from one search to the next.
+ *  A position whose stored result is deep enough to decide it is not
+ *  searched again, and otherwise its stored best move is searched first.
+ *
+ *  A timed search (see findMove) may use several threads ("Lazy SMP"):
+ *  helper Searchers, each with its own copy of the board, run their own
+ *  iterative deepening of the same root position, sharing only the
+ *  transposition table.  They find little that the main search would
+ *  not, but the results they leave in the table let it skip or order
+ *  much of its tree.  Helpers with odd numbers start one ply deeper, so
+ *  that the threads are not all working on the same iteration, and
+ *  their differing killer and history tables make them diverge further.
+ *  @author J. Masoudi
+ */
+class Searcher implements Engine {
+
+    /** Maximum depth of any search, in plies. */
+    static final int MAX_PLY = 64;
+
+    /** A position magnitude indicating a win (for red if positive, blue
+     *  if negative). */
+    static final int WINNING_VALUE = Integer.MAX_VALUE - 20 - MAX_PLY;
+    /** A magnitude greater than a normal value. */
+    static final int INFTY = Integer.MAX_VALUE;
+
+    /** Number of iterations with the same best move after which
+     *  iterative deepening uses less time. */
+    static final int STABLE_ITERATIONS = 3;
+
+    /** Move-ordering scores (see scoreMoves): the score of the move from
+     *  the transposition table, the shift for the number of pieces a move
+     *  gains, and the bonus for a killer move.  History scores are capped
+     *  below KILLER_SCORE. */
+    private static final int HASH_MOVE_SCORE = Integer.MAX_VALUE,
+        GAIN_SHIFT = 24, KILLER_SCORE = 1 << 23;
+
+    /** Aspiration windows (see aspirate): the minimum depth at which they
+     *  are used, the initial distance of each bound from the previous
+     *  value, and the distance beyond which a bound is dropped. */
+    static final int ASPIRATION_DEPTH = 3, ASPIRATION_WINDOW = 2,
+        ASPIRATION_LIMIT = 32;
+
+    /** Selective search techniques, for setPruning.  LMR (late move
+     *  reductions) searches moves that gain at most one piece, after the
+     *  first LMR_MOVES at a node, LMR_REDUCTION plies shallower when at
+     *  least LMR_DEPTH plies remain, and again in full only if they beat
+     *  alpha.  (The reduction is even because the piece difference swings
+     *  with the side to move: an odd one makes the reduced searches fail
+     *  high too often.)  FUTILITY skips moves within
+     *  FUTILITY_MARGINS.length plies of the leaves that cannot raise the
+     *  piece difference above alpha, even with the margin for the plies
+     *  left.  PROBCUT cuts off nodes with at least PROBCUT_DEPTH plies to
+     *  go using a shallower search (see probCut).  All apply only to
+     *  null-window searches away from the root and from winning values. */
+    static final int LMR = 1, FUTILITY = 2, PROBCUT = 4;
+
+    /** The selective search techniques whose margins are in pieces of
+     *  material, which are used only with Evaluator.MATERIAL. */
+    static final int MATERIAL_PRUNING = FUTILITY | PROBCUT;
+
+    /** Parameters of late move reductions (see LMR). */
+    static final int LMR_DEPTH = 4, LMR_MOVES = 3, LMR_REDUCTION = 2;
+
+    /** Futility margins, indexed by plies left - 1 (see FUTILITY). */
+    private static final int[] FUTILITY_MARGINS = { 0, 4 };
+
+    /** Parameters of ProbCut (see probCut), calibrated by
+     *  Benchmark.probCut. */
+    static final int PROBCUT_DEPTH = 4, PROBCUT_REDUCTION = 2;
+    static final double PROBCUT_SLOPE = 0.935, PROBCUT_OFFSET = -0.286,
+        PROBCUT_SIGMA = 1.425, PROBCUT_CONFIDENCE = 1.5;
+
+    /** Maximum depth of a quiescence search (see quiesce). */
+    static final int QUIESCENCE_PLIES = 4;
+
+    /** Default size of the transposition table, in megabytes. */
+    static final int DEFAULT_TABLE_SIZE = 16;
+
+    /** Default size of the evaluation cache, in megabytes. */
+    static final int DEFAULT_EVAL_CACHE_SIZE = 4;
+
+    /** A new Searcher with a transposition table of the default size. */
+    Searcher() {
+        this(DEFAULT_TABLE_SIZE);
+    }
+
+    /** A new Searcher whose transposition table occupies at most
+     *  TABLESIZE megabytes, with an evaluation cache of the default
+     *  size. */
+    Searcher(int tableSize) {
+        this(new TranspositionTable(tableSize),
+             new EvalCache(DEFAULT_EVAL_CACHE_SIZE), new AtomicBoolean());
+    }
+
+    /** A new Searcher using TABLE as its transposition table and
+     *  EVALCACHE (null for none) as its evaluation cache, which abandons
+     *  its search when STOP becomes true. */
+    private Searcher(TranspositionTable table, EvalCache evalCache,
+                     AtomicBoolean stop) {
+        _moves = new int[MAX_PLY + QUIESCENCE_PLIES + 1]
+            [Board.MAX_LEGAL_MOVES];
+        _scores = new int[MAX_PLY + QUIESCENCE_PLIES + 1]
+            [Board.MAX_LEGAL_MOVES];
+        _killers = new int[MAX_PLY + 1][2];
+        _history = new int[Squares.SIZE * Squares.SIZE];
+        _pv = new int[MAX_PLY + 2][MAX_PLY + 1];
+        _pvLengths = new int[MAX_PLY + 2];
+        _principal = new int[MAX_PLY + 1];
+        _bound = new int[MAX_PLY + 1];
+        _notifier = NOP;
+        _table = table;
+        _evalCache = evalCache;
+        _stop = stop;
+        _helpers = new Searcher[0];
+    }
+
+    /** Use THREADS threads (at least 1) for timed searches, which is to
+     *  say THREADS - 1 helpers. */
+    @Override
+    public void setThreads(int threads) {
+        threads = Math.max(1, threads);
+        if (threads == _helpers.length + 1) {
+            return;
+        }
+        if (_pool != null) {
+            _pool.shutdown();
+            _pool = null;
+        }
+        _helpers = new Searcher[threads - 1];
+        for (int i = 0; i < _helpers.length; i += 1) {
+            _helpers[i] = new Searcher(_table, _evalCache, _stop);
+            _helpers[i].setMergeClones(_mergeClones);
+            _helpers[i].setMtdf(_mtdf);
+            _helpers[i].setPruning(_pruning);
+            _helpers[i].setQuiescence(_quiescence);
+            _helpers[i]._evaluator = _evaluator;
+        }
+        if (threads > 1) {
+            _pool = Executors.newFixedThreadPool(threads - 1, (r) -> {
+                Thread thread = new Thread(r, "ataxx search helper");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /** Return the number of threads used by timed searches. */
+    int threads() {
+        return _helpers.length + 1;
+    }
+
+    /** Return a best move for the player to move on BOARD, searching
+     *  DEPTH plies, where 1 <= DEPTH <= MAX_PLY.  The game must not be
+     *  over (otherwise returns null).  BOARD is used as scratch space
+     *  and is restored before returning. */
+    @Override
+    public Move findMove(Board board, int depth) {
+        _table.newSearch();
+        startSearch(board);
+        int score;
+        if (_mtdf) {
+            score = mtdf(board, depth,
+                         sense(board) * staticScore(board, WINNING_VALUE,
+                                                   _evaluator));
+        } else {
+            score = pvs(board, depth, 0, -INFTY, INFTY);
+        }
+        _value = sense(board) * score;
+        _depth = depth;
+        savePV();
+        return _bestMove == 0 ? null : board.toMove(_bestMove);
+    }
+
+    /** Return a best move for the player to move on BOARD, found by
+     *  iterative deepening: searches of 1, 2, ... plies, up to MAXDEPTH
+     *  (<= MAX_PLY).  Since each iteration generally takes several times
+     *  as long as the one before, no iteration is started once half of
+     *  SOFTLIMIT milliseconds have passed since the call.  This budget is
+     *  halved if the best move has not changed for STABLE_ITERATIONS
+     *  iterations, and doubled (up to HARDLIMIT) if the last iteration
+     *  changed it.  Deepening also stops once an iteration finds a forced
+     *  win or loss.  An iteration still running at HARDLIMIT milliseconds
+     *  is abandoned, and the result is the move found by the last
+     *  completed iteration (the first iteration always completes).  The
+     *  game must not be over (otherwise returns null).  BOARD is used as
+     *  scratch space and is restored before returning.
+     *
+     *  Iterations after the first few search first with an aspiration
+     *  window around the value found by the previous one (see
+     *  aspirate), or, if setMtdf is on, start MTD(f) from that value.
+     *  After each completed iteration, the notifier (see setNotifier) is
+     *  called.
+     *
+     *  If there are helpers (see setThreads), they search alongside until
+     *  this search stops, and if one of them completed a deeper iteration,
+     *  its result is used instead.  The statistics then cover all
+     *  threads. */
+    @Override
+    public Move findMove(Board board, int maxDepth, long softLimit,
+                         long hardLimit) {
+        long start = System.nanoTime();
+        _table.newSearch();
+        startSearch(board);
+        Future<?>[] helping = new Future<?>[_helpers.length];
+        for (int i = 0; i < _helpers.length; i += 1) {
+            Searcher helper = _helpers[i];
+            Board copy = new Board(board);
+            int id = i + 1;
+            helping[i] = _pool.submit(() -> helper.help(copy, maxDepth, id));
+        }
+        int best = 0, stable = 0, score = 0;
+        for (int depth = 1; depth <= maxDepth; depth += 1) {
+            score = _mtdf ? mtdf(board, depth, score)
+                : aspirate(board, depth, score);
+            if (_aborted) {
+                break;
+            }
+            stable = _bestMove == best ? stable + 1 : 0;
+            best = _bestMove;
+            int value = sense(board) * score;
+            _value = value;
+            _depth = depth;
+            savePV();
+            _notifier.accept(this);
+            if (stopDeepening(value, depth, stable, System.nanoTime() - start,
+                              softLimit, hardLimit)) {
+                break;
+            }
+            _deadline = start + hardLimit * MILLIS;
+        }
+        _bestMove = best;
+        if (helping.length > 0) {
+            _stop.set(true);
+            for (int i = 0; i < helping.length; i += 1) {
+                finishHelper(helping[i], _helpers[i]);
+            }
+            _stop.set(false);
+        }
+        return _bestMove == 0 ? null : board.toMove(_bestMove);
+    }
+
+    /** Search BOARD by iterative deepening to at most MAXDEPTH plies, as
+     *  helper number ID, until told to stop.  Records the result of the
+     *  last iteration completed in _bestMove, _value, and _depth. */
+    private void help(Board board, int maxDepth, int id) {
+        startSearch(board);
+        int best = 0, score = 0;
+        for (int depth = 1 + id % 2; depth <= maxDepth; depth += 1) {
+            score = _mtdf ? mtdf(board, depth, score)
+                : aspirate(board, depth, score);
+            if (_aborted) {
+                break;
+            }
+            best = _bestMove;
+            _value = sense(board) * score;
+            _depth = depth;
+            savePV();
+        }
+        _bestMove = best;
+    }
+
+    /** Wait for HELPER, whose search is the task TASK, to finish.  Add its
+     *  statistics to mine, and take its result if it searched deeper. */
+    private void finishHelper(Future<?> task, Searcher helper) {
+        try {
+            task.get();
+        } catch (InterruptedException | ExecutionException excp) {
+            throw new Error("search helper failed", excp);
+        }
+        _nodes += helper._nodes;
+        _probes += helper._probes;
+        _hits += helper._hits;
+        _tableCutoffs += helper._tableCutoffs;
+        _evalProbes += helper._evalProbes;
+        _evalHits += helper._evalHits;
+        _cutoffs += helper._cutoffs;
+        _firstMoveCutoffs += helper._firstMoveCutoffs;
+        _researches += helper._researches;
+        _prunes += helper._prunes;
+        _reductions += helper._reductions;
+        _probCuts += helper._probCuts;
+        _quiescenceNodes += helper._quiescenceNodes;
+        if (helper._depth > _depth && helper._bestMove != 0) {
+            _bestMove = helper._bestMove;
+            _value = helper._value;
+            _depth = helper._depth;
+            _pvLength = helper._pvLength;
+            System.arraycopy(helper._principal, 0, _principal, 0,
+                             _pvLength);
+        }
+    }
+
+    /** Return true iff an iterative deepening with time budget SOFTLIMIT
+     *  and hard limit HARDLIMIT (milliseconds) should stop, having taken
+     *  ELAPSED nanoseconds so far, after an iteration to DEPTH found
+     *  VALUE and a best move that was also the best move of the previous
+     *  STABLE iterations.  The rules are as for findMove. */
+    static boolean stopDeepening(int value, int depth, int stable,
+                                 long elapsed, long softLimit,
+                                 long hardLimit) {
+        if (Math.abs(value) >= WINNING_VALUE - MAX_PLY) {
+            return true;
+        }
+        long limit;
+        if (stable >= STABLE_ITERATIONS) {
+            limit = softLimit / 2;
+        } else if (stable == 0 && depth > 1) {
+            limit = Math.min(hardLimit, 2 * softLimit);
+        } else {
+            limit = softLimit;
+        }
+        return elapsed >= limit * MILLIS / 2;
+    }
+
+    /** Prepare for a new search from BOARD with no time limit. */
+    private void startSearch(Board board) {
+        _root = board;
+        _pvLength = 0;
+        _researches = 0;
+        _prunes = _reductions = _probCuts = _quiescenceNodes = 0;
+        _nodes = 0;
+        _bestMove = 0;
+        _depth = 0;
+        _deadline = Long.MAX_VALUE;
+        _aborted = false;
+        _cutoffs = _firstMoveCutoffs = 0;
+        _probes = _hits = _tableCutoffs = 0;
+        _evalProbes = _evalHits = 0;
+        for (int[] killers : _killers) {
+            killers[0] = killers[1] = 0;
+        }
+        for (int i = 0; i < _history.length; i += 1) {
+            _history[i] /= 2;
+        }
+    }
+
+    /** Return the value found by the last findMove, from red's point of
+     *  view. */
+    @Override
+    public int value() {
+        return _value;
+    }
+
+    /** Return the depth of the last search completed by the last
+     *  findMove. */
+    @Override
+    public int depth() {
+        return _depth;
+    }
+
+    /** Return the number of positions visited by the last findMove. */
+    @Override
+    public long nodes() {
+        return _nodes;
+    }
+
+    /** Return the number of cutoffs in the last findMove. */
+    long cutoffs() {
+        return _cutoffs;
+    }
+
+    /** Return the number of cutoffs in the last findMove that were
+     *  caused by the first move searched. */
+    long firstMoveCutoffs() {
+        return _firstMoveCutoffs;
+    }
+
+    /** Return the number of re-searches after a search with an
+     *  aspiration window failed, or of passes of MTD(f) after the first,
+     *  in the last findMove. */
+    long researches() {
+        return _researches;
+    }
+
+    /** Return the number of moves searched with a late move reduction
+     *  in the last findMove. */
+    long reductions() {
+        return _reductions;
+    }
+
+    /** {@inheritDoc}  The variation is that of the last completed
+     *  iteration, and is valid until the board passed to findMove is
+     *  changed.  It ends early where the search reused a result from the
+     *  transposition table. */
+    @Override
+    public List<Move> principalVariation() {
+        ArrayList<Move> result = new ArrayList<>();
+        Board board = new Board(_root);
+        for (int i = 0; i < _pvLength; i += 1) {
+            Move move = board.toMove(_principal[i]);
+            result.add(move);
+            board.makeMove(move);
+        }
+        return result;
+    }
+
+    @Override
+    public void setNotifier(Consumer<Engine> notify) {
+        _notifier = notify;
+    }
+
+    /** Return the number of transposition-table probes in the last
+     *  findMove. */
+    long probes() {
+        return _probes;
+    }
+
+    /** Return the number of transposition-table probes in the last
+     *  findMove that found an entry. */
+    long hits() {
+        return _hits;
+    }
+
+    /** Return the number of transposition-table entries used in the last
+     *  findMove without searching further. */
+    long tableCutoffs() {
+        return _tableCutoffs;
+    }
+
+    /** Return my transposition table. */
+    TranspositionTable table() {
+        return _table;
+    }
+
+    /** Return the number of evaluation-cache probes in the last
+     *  findMove. */
+    long evalProbes() {
+        return _evalProbes;
+    }
+
+    /** Return the number of evaluation-cache probes in the last findMove
+     *  that found a value. */
+    long evalHits() {
+        return _evalHits;
+    }
+
+    /** Give me and my helpers an evaluation cache (see EvalCache) of at
+     *  most MEGABYTES megabytes, or none if MEGABYTES is 0.  The default
+     *  is DEFAULT_EVAL_CACHE_SIZE. */
+    void setEvalCache(int megabytes) {
+        _evalCache = megabytes == 0 ? null : new EvalCache(megabytes);
+        for (Searcher helper : _helpers) {
+            helper._evalCache = _evalCache;
+        }
+    }
+
+    /** Return a one-line summary of the statistics of the last
+     *  findMove. */
+    @Override
+    public String statistics() {
+        return String.format("depth %d, %d nodes (%d quiescent), %d "
+                             + "threads, %.1f%% of cutoffs on first move, "
+                             + "%d re-searches, %d futile, %d reduced, %d "
+                             + "probcuts; tt %dMB: %d probes, %.1f%% hits, "
+                             + "%.1f%% cutoffs; eval cache %dMB: %d probes, "
+                             + "%.1f%% hits", _depth, _nodes,
+                             _quiescenceNodes, threads(),
+                             percent(_firstMoveCutoffs, _cutoffs),
+                             _researches, _prunes, _reductions, _probCuts,
+                             _table.megabytes(), _probes,
+                             percent(_hits, _probes),
+                             percent(_tableCutoffs, _probes),
+                             _evalCache == null ? 0 : _evalCache.megabytes(),
+                             _evalProbes, percent(_evalHits, _evalProbes));
+    }
+
+    /** If MTDF, find the value at the root by MTD(f), a sequence of
+     *  null-window searches (see mtdf), rather than by a principal
+     *  variation search.  Off by default. */
+    void setMtdf(boolean mtdf) {
+        _mtdf = mtdf;
+        for (Searcher helper : _helpers) {
+            helper.setMtdf(mtdf);
+        }
+    }
+
+    /** Use the selective search techniques in TECHNIQUES, the union of
+     *  any of LMR, FUTILITY, and PROBCUT.  None are used by default, so
+     *  that searches find exact minimax values.  Those in
+     *  MATERIAL_PRUNING are ignored unless the evaluator is
+     *  Evaluator.MATERIAL: their margins and ProbCut's fit (see
+     *  Benchmark.probCut) are for the piece difference. */
+    @Override
+    public void setPruning(int techniques) {
+        _pruning = techniques;
+        for (Searcher helper : _helpers) {
+            helper.setPruning(techniques);
+        }
+    }
+
+    /** Extend the search at its leaves with a quiescence search (see
+     *  quiesce) of moves that capture at least THRESHOLD pieces, or, if
+     *  THRESHOLD is 0 (the default), do not. */
+    @Override
+    public void setQuiescence(int threshold) {
+        _quiescence = threshold;
+        for (Searcher helper : _helpers) {
+            helper.setQuiescence(threshold);
+        }
+    }
+
+    /** Evaluate the leaves of searches with EVALUATOR (by default,
+     *  Evaluator.MATERIAL).  A change of evaluator clears the evaluation
+     *  cache, which my helpers share. */
+    @Override
+    public void setEvaluator(Evaluator evaluator) {
+        if (evaluator != _evaluator && _evalCache != null) {
+            _evalCache.clear();
+        }
+        _evaluator = evaluator;
+        for (Searcher helper : _helpers) {
+            helper._evaluator = evaluator;
+        }
+    }
+
+    /** Return the quiescence threshold (see setQuiescence). */
+    int quiescence() {
+        return _quiescence;
+    }
+
+    /** Return the selective search techniques in use (see
+     *  setPruning). */
+    int pruning() {
+        return _pruning;
+    }
+
+    /** If MERGECLONES (the default), search each distinct extend only
+     *  once, rather than once for every piece that can make it (see
+     *  Board.legalMoves). */
+    void setMergeClones(boolean mergeClones) {
+        _mergeClones = mergeClones;
+        for (Searcher helper : _helpers) {
+            helper.setMergeClones(mergeClones);
+        }
+    }
+
+    /** Return the value of BOARD searched to DEPTH plies from the point
+     *  of view of the player to move, searching first with a window of
+     *  ASPIRATION_WINDOW either side of PREVIOUS, the value found by the
+     *  last iteration, if DEPTH is at least ASPIRATION_DEPTH.  If the value
+     *  falls outside the window, widens the window on that side, by a
+     *  factor of four each time, and searches again.  Sets _bestMove to
+     *  the best move found. */
+    private int aspirate(Board board, int depth, int previous) {
+        if (depth < ASPIRATION_DEPTH
+            || Math.abs(previous) >= WINNING_VALUE - MAX_PLY) {
+            return pvs(board, depth, 0, -INFTY, INFTY);
+        }
+        int below, above;
+        below = above = ASPIRATION_WINDOW;
+        while (true) {
+            int alpha = below > ASPIRATION_LIMIT ? -INFTY : previous - below;
+            int beta = above > ASPIRATION_LIMIT ? INFTY : previous + above;
+            int score = pvs(board, depth, 0, alpha, beta);
+            if (_aborted) {
+                return 0;
+            } else if (score <= alpha && alpha != -INFTY) {
+                below *= 4;
+            } else if (score >= beta && beta != INFTY) {
+                above *= 4;
+            } else {
+                return score;
+            }
+            _researches += 1;
+        }
+    }
+
+    /** Return the value of BOARD searched to DEPTH plies from the point
+     *  of view of the player to move, by MTD(f), starting from GUESS.
+     *  Each pass is a null-window search at the current guess, which
+     *  either raises the lower bound on the value or lowers the upper
+     *  bound, and passes repeat, with the new bound as the guess, until
+     *  the bounds meet.  The transposition table keeps the work of one
+     *  pass for the next.  Sets _bestMove and the principal variation to
+     *  those found by the last pass that failed high, the only ones that
+     *  are known to reach the value.  Counts passes after the first as
+     *  re-searches. */
+    private int mtdf(Board board, int depth, int guess) {
+        int lower = -INFTY, upper = INFTY;
+        int value = guess, best = 0;
+        while (lower < upper) {
+            int beta = value == lower ? value + 1 : value;
+            value = pvs(board, depth, 0, beta - 1, beta);
+            if (_aborted) {
+                return 0;
+            }
+            if (value < beta) {
+                upper = value;
+            } else {
+                lower = value;
+                best = _bestMove;
+                _boundLength = _pvLengths[0];
+                System.arraycopy(_pv[0], 0, _bound, 0, _boundLength);
+            }
+            if (lower < upper) {
+                _researches += 1;
+            }
+        }
+        _bestMove = best;
+        _pvLengths[0] = _boundLength;
+        System.arraycopy(_bound, 0, _pv[0], 0, _boundLength);
+        return value;
+    }
+
+    /** Return the value of BOARD searched to DEPTH plies, PLY plies below
+     *  the root, from the point of view of the player to move, by
+     *  negamax principal variation search.  A value in the window ALPHA
+     *  to BETA is exact.  A value <= ALPHA is an upper bound on the exact
+     *  value, and one >= BETA a lower bound.  The first move at each node
+     *  is searched with the full window.  The rest are searched first
+     *  with a null window at ALPHA, to show that they are no better, and
+     *  again with the full window only if they are.  Records the
+     *  principal variation from BOARD in _pv[PLY], and at the root, the
+     *  best move in _bestMove.  If the time limit passes or _stop is set,
+     *  sets _aborted and returns 0 without recording anything. */
+    private int pvs(Board board, int depth, int ply, int alpha, int beta) {
+        /* We use WINNING_VALUE + depth as the winning value so as to favor
+         * wins that happen sooner rather than later (depth is larger the
+         * fewer moves have been made. */
+        _nodes += 1;
+        if ((_nodes & CHECK_INTERVAL) == 0
+            && (System.nanoTime() > _deadline || _stop.get())) {
+            _aborted = true;
+        }
+        if (_aborted) {
+            return 0;
+        }
+        _pvLengths[ply] = ply;
+        if (depth == 0 && _quiescence > 0 && board.computeWinner() == null) {
+            return quiesce(board, ply, QUIESCENCE_PLIES, alpha, beta);
+        }
+        if (depth == 0 || board.computeWinner() != null) {
+            return sense(board)
+                * staticScore(board, WINNING_VALUE + depth, _cachedEvaluator);
+        }
+        long key = board.key();
+        long entry = _table.probe(key);
+        int hashMove = 0;
+        _probes += 1;
+        if (entry != TranspositionTable.MISS) {
+            _hits += 1;
+            hashMove = TranspositionTable.move(entry);
+            if (ply > 0 && beta - alpha == 1
+                && TranspositionTable.depth(entry) >= depth) {
+                int score = fromTable(TranspositionTable.score(entry), depth);
+                int bound = TranspositionTable.bound(entry);
+                if (bound == TranspositionTable.EXACT
+                    || bound == TranspositionTable.LOWER && score >= beta
+                    || bound == TranspositionTable.UPPER && score <= alpha) {
+                    _tableCutoffs += 1;
+                    return score;
+                }
+            }
+        }
+        boolean selective = ply > 0 && beta - alpha == 1
+            && Math.abs(beta) < WINNING_VALUE - MAX_PLY;
+        int pruning = _evaluator == Evaluator.MATERIAL ? _pruning
+            : _pruning & ~MATERIAL_PRUNING;
+        if (selective && (pruning & PROBCUT) != 0 && depth >= PROBCUT_DEPTH) {
+            int score = probCut(board, depth, ply, alpha, beta);
+            if (score != -INFTY) {
+                return score;
+            }
+            _pvLengths[ply] = ply;
+        }
+        int eval = 0;
+        boolean futile = selective && (pruning & FUTILITY) != 0
+            && depth <= FUTILITY_MARGINS.length
+            && Squares.count(board.empties()) > depth;
+        if (futile) {
+            eval = board.numPieces(board.whoseMove())
+                - board.numPieces(board.whoseMove().opposite());
+        }
+        boolean reduce = selective && (pruning & LMR) != 0
+            && depth >= LMR_DEPTH;
+        int[] moves = _moves[ply];
+        int numMoves = board.legalMoves(moves, 0, _mergeClones);
+        scoreMoves(board, moves, numMoves, ply, hashMove);
+        int alpha0 = alpha;
+        int best = 0;
+        int bestScore = -INFTY;
+        for (int i = 0; i < numMoves; i += 1) {
+            selectMove(moves, numMoves, ply, i);
+            int move = moves[i];
+            int captures = board.captures(move);
+            if (futile && i > 0) {
+                int bound = eval + 2 * captures + (Move.isJump(move) ? 0 : 1)
+                    + FUTILITY_MARGINS[depth - 1];
+                if (bound <= alpha
+                    && captures < board.numPieces(board.whoseMove()
+                                                  .opposite())) {
+                    _prunes += 1;
+                    bestScore = Math.max(bestScore, bound);
+                    continue;
+                }
+            }
+            int reduction = reduce && i >= LMR_MOVES && move != hashMove
+                && captures + (Move.isJump(move) ? 0 : 1) <= 1
+                ? LMR_REDUCTION : 0;
+            _reductions += reduction > 0 ? 1 : 0;
+            board.makeMoveUnchecked(move);
+            int score;
+            if (i == 0) {
+                score = -pvs(board, depth - 1, ply + 1, -beta, -alpha);
+            } else {
+                score = -pvs(board, depth - 1 - reduction, ply + 1,
+                             -alpha - 1, -alpha);
+                if (reduction > 0 && score > alpha) {
+                    score = -pvs(board, depth - 1, ply + 1,
+                                 -alpha - 1, -alpha);
+                }
+                if (score > alpha && score < beta) {
+                    score = -pvs(board, depth - 1, ply + 1, -beta, -alpha);
+                }
+            }
+            board.undoUnchecked();
+            if (_aborted) {
+                return 0;
+            }
+            if (score > bestScore) {
+                bestScore = score;
+                best = move;
+                if (score > alpha) {
+                    alpha = score;
+                    int[] pv = _pv[ply], next = _pv[ply + 1];
+                    pv[ply] = move;
+                    int length = _pvLengths[ply + 1];
+                    System.arraycopy(next, ply + 1, pv, ply + 1,
+                                     length - ply - 1);
+                    _pvLengths[ply] = Math.max(length, ply + 1);
+                }
+            }
+            if (alpha >= beta) {
+                recordCutoff(move, depth, ply, i);
+                break;
+            }
+        }
+        int bound = bestScore <= alpha0 ? TranspositionTable.UPPER
+            : bestScore >= beta ? TranspositionTable.LOWER
+            : TranspositionTable.EXACT;
+        _table.store(key, depth, bound, toTable(bestScore, depth), best);
+        if (ply == 0) {
+            _bestMove = best;
+        }
+        return bestScore;
+    }
+
+    /** Return the value of BOARD, PLY plies below the root, from the
+     *  point of view of the player to move, found by a quiescence search
+     *  of at most PLIES plies with window ALPHA to BETA (as for pvs).
+     *  Each player may either "stand pat", taking the current piece
+     *  difference as the value, or make a move that captures at least
+     *  _quiescence pieces, so that the value is not taken in the middle
+     *  of an exchange of large captures. */
+    private int quiesce(Board board, int ply, int plies, int alpha,
+                        int beta) {
+        if (board.computeWinner() != null) {
+            return sense(board) * staticScore(board, WINNING_VALUE);
+        }
+        int bestScore = sense(board) * evaluate(board);
+        if (bestScore >= beta || plies == 0) {
+            return bestScore;
+        }
+        alpha = Math.max(alpha, bestScore);
+        int[] moves = _moves[ply], scores = _scores[ply];
+        int numMoves = board.captureMoves(moves, 0, _quiescence);
+        for (int i = 0; i < numMoves; i += 1) {
+            scores[i] = board.captures(moves[i]);
+        }
+        for (int i = 0; i < numMoves; i += 1) {
+            selectMove(moves, numMoves, ply, i);
+            board.makeMoveUnchecked(moves[i]);
+            _nodes += 1;
+            _quiescenceNodes += 1;
+            int score = -quiesce(board, ply + 1, plies - 1, -beta, -alpha);
+            board.undoUnchecked();
+            if (score > bestScore) {
+                bestScore = score;
+                alpha = Math.max(alpha, score);
+                if (alpha >= beta) {
+                    break;
+                }
+            }
+        }
+        return bestScore;
+    }
+
+    /** Return a bound on the value of BOARD searched to DEPTH plies, PLY
+     *  plies below the root, with the null window ALPHA to BETA (=
+     *  ALPHA + 1), if ProbCut can predict one, or -INFTY if it cannot.
+     *  ProbCut predicts the value as PROBCUT_SLOPE times the value of a
+     *  search PROBCUT_REDUCTION plies shallower, plus PROBCUT_OFFSET, and
+     *  takes the error of the prediction to be normally distributed with
+     *  standard deviation PROBCUT_SIGMA.  It returns BETA if a shallow
+     *  null-window search shows that the value is at least BETA with
+     *  PROBCUT_CONFIDENCE standard deviations to spare, and ALPHA if
+     *  another shows in the same way that it is at most ALPHA.  (See
+     *  Benchmark.probCut for the calibration.) */
+    private int probCut(Board board, int depth, int ply, int alpha,
+                        int beta) {
+        double margin = PROBCUT_CONFIDENCE * PROBCUT_SIGMA;
+        int shallow = depth - PROBCUT_REDUCTION;
+        int high = (int) Math.ceil((beta + margin - PROBCUT_OFFSET)
+                                   / PROBCUT_SLOPE);
+        if (high < WINNING_VALUE - MAX_PLY
+            && pvs(board, shallow, ply, high - 1, high) >= high) {
+            _probCuts += 1;
+            return beta;
+        }
+        int low = (int) Math.floor((alpha - margin - PROBCUT_OFFSET)
+                                   / PROBCUT_SLOPE);
+        if (low > MAX_PLY - WINNING_VALUE
+            && pvs(board, shallow, ply, low, low + 1) <= low) {
+            _probCuts += 1;
+            return alpha;
+        }
+        return _aborted ? 0 : -INFTY;
+    }
+
+    /** Save the principal variation of the search just completed. */
+    private void savePV() {
+        _pvLength = _pvLengths[0];
+        System.arraycopy(_pv[0], 0, _principal, 0, _pvLength);
+    }
+
+    /** Return 1 if red is to move on BOARD, and -1 otherwise. */
+    private static int sense(Board board) {
+        return board.whoseMove() == RED ? 1 : -1;
+    }
+
+    /** Set _scores[PLY][0 .. NUMMOVES-1] to the ordering scores of the
+     *  packed moves MOVES[0 .. NUMMOVES-1] from BOARD, where HASHMOVE is
+     *  the best move recorded for BOARD in the transposition table (0 if
+     *  none).  The hash move scores highest.  The rest are ordered first
+     *  by the number of pieces they gain (captures, plus one for an
+     *  extend), then by whether they are killers at PLY, and then by
+     *  their history scores. */
+    private void scoreMoves(Board board, int[] moves, int numMoves, int ply,
+                            int hashMove) {
+        int[] scores = _scores[ply];
+        int[] killers = _killers[ply];
+        for (int i = 0; i < numMoves; i += 1) {
+            int move = moves[i];
+            if (move == hashMove) {
+                scores[i] = HASH_MOVE_SCORE;
+                continue;
+            }
+            int gain = board.captures(move) + (Move.isJump(move) ? 0 : 1);
+            int score = gain << GAIN_SHIFT;
+            if (move == killers[0] || move == killers[1]) {
+                score += KILLER_SCORE;
+            }
+            scores[i] = score + Math.min(_history[historyIndex(move)],
+                                         KILLER_SCORE - 1);
+        }
+    }
+
+    /** Move the highest-scoring of the packed moves MOVES[I .. NUMMOVES-1]
+     *  into MOVES[I], using the scores in _scores[PLY] (see scoreMoves),
+     *  which are permuted along with MOVES.  Only the moves actually
+     *  searched are sorted, so a cutoff saves the rest of the work. */
+    private void selectMove(int[] moves, int numMoves, int ply, int i) {
+        int[] scores = _scores[ply];
+        int k = i;
+        for (int j = i + 1; j < numMoves; j += 1) {
+            if (scores[j] > scores[k]) {
+                k = j;
+            }
+        }
+        if (k != i) {
+            int move = moves[k], score = scores[k];
+            moves[k] = moves[i];
+            scores[k] = scores[i];
+            moves[i] = move;
+            scores[i] = score;
+        }
+    }
+
+    /** Record that the packed move MOVE, the Ith searched at PLY in a
+     *  search of DEPTH more plies, caused a cutoff. */
+    private void recordCutoff(int move, int depth, int ply, int i) {
+        _cutoffs += 1;
+        if (i == 0) {
+            _firstMoveCutoffs += 1;
+        }
+        int[] killers = _killers[ply];
+        if (killers[0] != move) {
+            killers[1] = killers[0];
+            killers[0] = move;
+        }
+        _history[historyIndex(move)] += depth * depth;
+    }
+
+    /** Return 100 * PART / WHOLE, or 0 if WHOLE is 0. */
+    static double percent(long part, long whole) {
+        return whole == 0 ? 0.0 : 100.0 * part / whole;
+    }
+
+    /** Return the index in _history of packed move MOVE. */
+    private static int historyIndex(int move) {
+        return Move.from(move) * Squares.SIZE + Move.to(move);
+    }
+
+    /** Return SCORE, the value of a position searched to DEPTH, in the
+     *  form stored in the transposition table.  Winning values are
+     *  stored relative to DEPTH, so that a win the same number of plies
+     *  away has the same value in any search that reuses the entry. */
+    private static int toTable(int score, int depth) {
+        if (score >= WINNING_VALUE - MAX_PLY) {
+            return score - depth;
+        } else if (score <= -WINNING_VALUE + MAX_PLY) {
+            return score + depth;
+        }
+        return score;
+    }
+
+    /** Return the value for a search to DEPTH corresponding to SCORE, a
+     *  value stored in the transposition table (see toTable). */
+    private static int fromTable(int score, int depth) {
+        if (score >= WINNING_VALUE - MAX_PLY) {
+            return score + depth;
+        } else if (score <= -WINNING_VALUE + MAX_PLY) {
+            return score - depth;
+        }
+        return score;
+    }
+
+    /** Return a heuristic value for BOARD.  This value is +- WINNINGVALUE in
+     *  won positions, and 0 for ties. */
+    static int staticScore(Board board, int winningValue) {
+        return staticScore(board, winningValue, Evaluator.MATERIAL);
+    }
+
+    /** Return a heuristic value for BOARD from red's point of view: +-
+     *  WINNINGVALUE in won positions, 0 for ties, and otherwise the value
+     *  given by EVALUATOR. */
+    static int staticScore(Board board, int winningValue,
+                           Evaluator evaluator) {
+        PieceColor winner = board.computeWinner();
+        if (winner != null) {
+            return switch (winner) {
+            case RED -> winningValue;
+            case BLUE -> -winningValue;
+            default -> 0;
+            };
+        }
+        return evaluator.evaluate(board);
+    }
+
+    /** Return my evaluator's value for BOARD, whose game is not over,
+     *  from the evaluation cache if it is there, and otherwise adding it
+     *  to the cache, if the evaluator is worth caching.  The key omits
+     *  the count of consecutive jumps, which evaluators do not see. */
+    private int evaluate(Board board) {
+        if (_evalCache == null || !_evaluator.worthCaching()) {
+            return _evaluator.evaluate(board);
+        }
+        long key = board.key() ^ Zobrist.jumps(board.numJumps());
+        _evalProbes += 1;
+        int value = _evalCache.probe(key);
+        if (value != EvalCache.MISS) {
+            _evalHits += 1;
+            return value;
+        }
+        value = _evaluator.evaluate(board);
+        _evalCache.store(key, value);
+        return value;
+    }
+
+    /** Move buffers, indexed by ply. */
+    private final int[][] _moves;
+
+    /** Move-ordering scores for the moves in _moves, indexed by ply. */
+    private final int[][] _scores;
+
+    /** The two most recent moves that caused cutoffs, indexed by ply. */
+    private final int[][] _killers;
+
+    /** History scores: the sum of the squares of the remaining depths of
+     *  the cutoffs caused by each move, indexed by historyIndex, and
+     *  halved at the start of each search. */
+    private final int[] _history;
+
+    /** Numbers of cutoffs, and of cutoffs by the first move searched, in
+     *  the current search. */
+    private long _cutoffs, _firstMoveCutoffs;
+
+    /** Triangular principal-variation table: _pv[P][P .. _pvLengths[P]-1]
+     *  is the principal variation (in packed form) found for the
+     *  position P plies below the root in the current search. */
+    private final int[][] _pv;
+    /** Ends of the rows of _pv. */
+    private final int[] _pvLengths;
+
+    /** The principal variation found by the last completed search, of
+     *  length _pvLength, from _root. */
+    private final int[] _principal;
+    /** Length of _principal. */
+    private int _pvLength;
+    /** The principal variation, of length _boundLength, found by the
+     *  last pass of mtdf that failed high. */
+    private final int[] _bound;
+    /** Length of _bound. */
+    private int _boundLength;
+
+    /** The position searched by the last findMove. */
+    private Board _root;
+
+    /** Called after each completed iteration of a timed search. */
+    private Consumer<Engine> _notifier;
+
+    /** A notifier that does nothing. */
+    private static final Consumer<Engine> NOP = (e) -> { };
+
+    /** Number of re-searches after aspiration-window failures in the
+     *  current search. */
+    private long _researches;
+
+    /** Numbers of moves pruned as futile, of moves searched with a late
+     *  move reduction, and of ProbCut cutoffs in the current search. */
+    private long _prunes, _reductions, _probCuts;
+
+    /** Number of positions visited by quiescence searches (included in
+     *  _nodes) in the current search. */
+    private long _quiescenceNodes;
+
+    /** Numbers of transposition-table probes, of hits, and of hits used
+     *  without searching further, in the current search. */
+    private long _probes, _hits, _tableCutoffs;
+
+    /** Numbers of evaluation-cache probes and of hits in the current
+     *  search. */
+    private long _evalProbes, _evalHits;
+
+    /** Results of earlier searches, shared with my helpers. */
+    private final TranspositionTable _table;
+
+    /** Values of earlier evaluations, shared with my helpers, or null if
+     *  none. */
+    private EvalCache _evalCache;
+
+    /** My evaluator, in front of which is the evaluation cache. */
+    private final Evaluator _cachedEvaluator = this::evaluate;
+
+    /** Set to tell my helpers (or, in a helper, me) to stop searching. */
+    private final AtomicBoolean _stop;
+
+    /** My helpers, which search alongside me in timed searches. */
+    private Searcher[] _helpers;
+
+    /** Threads for my helpers, or null if none. */
+    private ExecutorService _pool;
+
+    /** Selective search techniques in use (see setPruning). */
+    private int _pruning;
+
+    /** Minimum captures of a move searched in quiescence, or 0 for no
+     *  quiescence search. */
+    private int _quiescence;
+
+    /** Evaluation of leaves. */
+    private Evaluator _evaluator = Evaluator.MATERIAL;
+
+    /** True iff the root is searched by MTD(f). */
+    private boolean _mtdf;
+
+    /** True iff extends onto the same square are searched once. */
+    private boolean _mergeClones = true;
+
+    /** Best move at the root found by the last search, in packed form. */
+    private int _bestMove;
+
+    /** Depth of the last completed search. */
+    private int _depth;
+
+    /** Time (as from System.nanoTime) at which to abandon the current
+     *  search. */
+    private long _deadline;
+
+    /** True iff the current search has been abandoned. */
+    private boolean _aborted;
+
+    /** The clock is checked whenever the node count has none of these
+     *  bits set. */
+    private static final long CHECK_INTERVAL = 1023;
+
+    /** Nanoseconds per millisecond. */
+    static final long MILLIS = 1_000_000;
+
+    /** Value of the last search. */
+    private int _value;
+
+    /** Number of positions visited in the last search. */
+    private long _nodes;
+}
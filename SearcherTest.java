@@ -0,0 +1,326 @@
+/* Skeleton code copyright (C) 2008, 2022 Paul N. Hilfinger and the
+ * Regents of the University of California.  Do not distribute this or any
+ * derivative work without permission. */
+
+package ataxx;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import static ataxx.PieceColor.*;
+import static org.junit.Assert.*;
+
+/** Tests of the Searcher class.
+ *  @author J. Masoudi
+ */
+public class SearcherTest {
+
+    /** Return a position reached from the initial board by N random
+     *  moves chosen with a generator seeded with SEED, or an earlier
+     *  one if the game ends first. */
+    static Board randomPosition(int n, long seed) {
+        Random random = new Random(seed);
+        Board b = new Board();
+        int[] moves = new int[Board.MAX_LEGAL_MOVES];
+        for (int k = 0; k < n; k += 1) {
+            int count = b.legalMoves(moves, 0);
+            b.makeMove(moves[random.nextInt(count)]);
+            if (b.getWinner() != null) {
+                b.undo();
+                break;
+            }
+        }
+        return new Board(b);
+    }
+
+    /** Return the minimax value of B searched to DEPTH without pruning,
+     *  generating moves by looking at every square. */
+    static int reference(Board b, int depth) {
+        if (depth == 0 || b.getWinner() != null) {
+            return Searcher.staticScore(b, Searcher.WINNING_VALUE + depth);
+        }
+        ArrayList<Move> moves = new ArrayList<>();
+        for (int sq = 0; sq < Squares.SIZE; sq += 1) {
+            if (b.get(Squares.index(sq)) != b.whoseMove()) {
+                continue;
+            }
+            for (int sq1 = 0; sq1 < Squares.SIZE; sq1 += 1) {
+                Move mv = Move.move(Squares.col(sq), Squares.row(sq),
+                                    Squares.col(sq1), Squares.row(sq1));
+                if (mv != null && b.legalMove(mv)) {
+                    moves.add(mv);
+                }
+            }
+        }
+        if (moves.isEmpty()) {
+            moves.add(Move.pass());
+        }
+        boolean red = b.whoseMove() == RED;
+        int best = red ? -Searcher.INFTY : Searcher.INFTY;
+        for (Move mv : moves) {
+            b.makeMove(mv);
+            int v = reference(b, depth - 1);
+            b.undo();
+            best = red ? Math.max(best, v) : Math.min(best, v);
+        }
+        return best;
+    }
+
+    @Test
+    public void testValues() {
+        for (int k = 0; k < 12; k += 1) {
+            Searcher searcher = new Searcher(1);
+            Board b = randomPosition(4 * k, k);
+            Move mv = searcher.findMove(b, 3);
+            assertEquals("wrong search value", reference(b, 3),
+                         searcher.value());
+            assertTrue("illegal move found", b.legalMove(mv));
+        }
+    }
+
+    @Test
+    public void testMergeClones() {
+        Searcher merged = new Searcher(), unmerged = new Searcher();
+        unmerged.setMergeClones(false);
+        Board b = randomPosition(12, 3);
+        merged.findMove(b, 3);
+        unmerged.findMove(b, 3);
+        assertEquals("merging clones changed value", unmerged.value(),
+                     merged.value());
+        assertTrue("merging clones did not shrink tree",
+                   merged.nodes() < unmerged.nodes());
+    }
+
+    @Test
+    public void testTable() {
+        Searcher searcher = new Searcher(1);
+        Board b = randomPosition(16, 5);
+        Move mv = searcher.findMove(b, 4);
+        int value = searcher.value();
+        long nodes = searcher.nodes();
+        assertTrue("no transpositions found", searcher.tableCutoffs() > 0);
+        assertTrue("cutoffs exceed hits",
+                   searcher.tableCutoffs() <= searcher.hits());
+        assertTrue("hits exceed probes",
+                   searcher.hits() <= searcher.probes());
+        assertEquals("table changed value", reference(b, 4), value);
+        assertEquals("repeated search found different move", mv,
+                     searcher.findMove(b, 4));
+        assertEquals("repeated search found different value", value,
+                     searcher.value());
+        assertTrue("repeated search did not reuse results",
+                   searcher.nodes() < nodes);
+    }
+
+    @Test
+    public void testEvalCache() {
+        Board b = randomPosition(14, 23);
+        Evaluator network = NnueEvaluator.random(16, 4, 23);
+        Searcher uncached = new Searcher(1);
+        uncached.setEvalCache(0);
+        uncached.setEvaluator(network);
+        Move mv = uncached.findMove(b, 4);
+        assertEquals("probes without a cache", 0, uncached.evalProbes());
+        Searcher cached = new Searcher(1);
+        cached.setEvaluator(new PositionalEvaluator());
+        cached.findMove(b, 4);
+        assertEquals("cheap evaluator cached", 0, cached.evalProbes());
+        cached.setEvaluator(network);
+        assertEquals("cache changed move", mv, cached.findMove(b, 4));
+        assertEquals("cache changed value", uncached.value(),
+                     cached.value());
+        assertTrue("no evaluations cached", cached.evalHits() > 0);
+        assertTrue("hits exceed probes",
+                   cached.evalHits() <= cached.evalProbes());
+        cached.findMove(b, 4);
+        assertTrue("repeated search did not reuse evaluations",
+                   cached.evalHits() > cached.evalProbes() * 9 / 10);
+    }
+
+    @Test
+    public void testOrdering() {
+        Searcher searcher = new Searcher(1);
+        Board b = randomPosition(14, 11);
+        searcher.findMove(b, 4);
+        assertTrue("no cutoffs", searcher.cutoffs() > 0);
+        assertTrue("poor move ordering",
+                   searcher.firstMoveCutoffs() > searcher.cutoffs() * 3 / 4);
+    }
+
+    @Test
+    public void testTimeLimit() {
+        Searcher searcher = new Searcher(1);
+        Board b = randomPosition(20, 7);
+        long start = System.currentTimeMillis();
+        Move mv = searcher.findMove(b, Searcher.MAX_PLY, 50, 200);
+        long time = System.currentTimeMillis() - start;
+        assertTrue("hard time limit exceeded: " + time + " msec",
+                   time < 400);
+        assertTrue("illegal move found", b.legalMove(mv));
+        assertTrue("deepening stopped early", searcher.depth() >= 2);
+        mv = searcher.findMove(b, 3, 10000, 10000);
+        assertEquals("depth limit ignored", 3, searcher.depth());
+        assertTrue("illegal move found", b.legalMove(mv));
+    }
+
+    @Test
+    public void testThreads() {
+        Searcher searcher = new Searcher(1);
+        searcher.setThreads(4);
+        assertEquals("wrong thread count", 4, searcher.threads());
+        Board b = randomPosition(12, 13);
+        Board b0 = new Board(b);
+        Move mv = searcher.findMove(b, 5, 60000, 60000);
+        assertEquals("wrong depth", 5, searcher.depth());
+        assertTrue("illegal move found", b.legalMove(mv));
+        assertEquals("board changed", b0, b);
+        searcher.setThreads(1);
+        assertEquals("wrong thread count", 1, searcher.threads());
+        assertTrue("illegal move found",
+                   b.legalMove(searcher.findMove(b, 5, 60000, 60000)));
+    }
+
+    @Test
+    public void testMtdf() {
+        for (int k = 0; k < 10; k += 1) {
+            Board b = randomPosition(10 + 2 * k, 500 + k);
+            if (b.getWinner() != null) {
+                continue;
+            }
+            Searcher searcher = new Searcher(1);
+            searcher.setMtdf(true);
+            Move mv = searcher.findMove(b, 4);
+            assertEquals("wrong value", reference(b, 4), searcher.value());
+            assertEquals("variation does not start with the move", mv,
+                         searcher.principalVariation().get(0));
+            searcher.findMove(b, 4, 60000, 60000);
+            assertEquals("wrong value by iterative deepening",
+                         reference(b, searcher.depth()), searcher.value());
+            assertTrue("illegal move found", b.legalMove(mv));
+        }
+    }
+
+    @Test
+    public void testPruning() {
+        Board b = randomPosition(12, 77);
+        Searcher searcher = new Searcher(1);
+        searcher.findMove(b, 6);
+        long full = searcher.nodes();
+        int[] techniques = {
+            Searcher.LMR, Searcher.FUTILITY, Searcher.PROBCUT,
+            Searcher.LMR | Searcher.FUTILITY | Searcher.PROBCUT,
+        };
+        for (int t : techniques) {
+            searcher = new Searcher(1);
+            searcher.setPruning(t);
+            assertEquals("switch not set", t, searcher.pruning());
+            Move mv = searcher.findMove(b, 6);
+            assertTrue("illegal move found", b.legalMove(mv));
+            assertTrue("no nodes saved by " + t, searcher.nodes() < full);
+        }
+    }
+
+    @Test
+    public void testPruningPositional() {
+        Evaluator positional = new PositionalEvaluator();
+        for (int k = 0; k < 5; k += 1) {
+            Board b = randomPosition(12 + k, 40 + k);
+            Searcher full = new Searcher(1);
+            full.setEvaluator(positional);
+            full.findMove(b, 5);
+            Searcher material = new Searcher(1);
+            material.setEvaluator(positional);
+            material.setPruning(Searcher.MATERIAL_PRUNING);
+            material.findMove(b, 5);
+            assertEquals("material margins used with positional values",
+                         full.value(), material.value());
+            Searcher all = new Searcher(1);
+            all.setEvaluator(positional);
+            all.setPruning(Searcher.LMR | Searcher.MATERIAL_PRUNING);
+            all.findMove(b, 5);
+            assertTrue("pruned value " + all.value() + " too far from "
+                       + full.value(),
+                       Math.abs(all.value() - full.value()) <= 4);
+        }
+    }
+
+    @Test
+    public void testReductionsSelective() {
+        for (int k = 0; k < 5; k += 1) {
+            Board b = randomPosition(12 + k, 90 + k);
+            Searcher full = new Searcher(1);
+            full.findMove(b, Searcher.LMR_DEPTH);
+            Searcher searcher = new Searcher(1);
+            searcher.setPruning(Searcher.LMR);
+            searcher.findMove(b, Searcher.LMR_DEPTH);
+            assertEquals("root moves reduced", 0, searcher.reductions());
+            assertEquals("value changed", full.value(), searcher.value());
+            searcher.findMove(b, Searcher.LMR_DEPTH + 2);
+            assertTrue("nothing reduced", searcher.reductions() > 0);
+        }
+    }
+
+    @Test
+    public void testPrincipalVariation() {
+        for (int k = 0; k < 10; k += 1) {
+            Board b = randomPosition(12 + k, 300 + k);
+            if (b.getWinner() != null) {
+                continue;
+            }
+            Searcher searcher = new Searcher(1);
+            Move mv = searcher.findMove(b, 4);
+            List<Move> pv = searcher.principalVariation();
+            assertFalse("empty principal variation", pv.isEmpty());
+            assertEquals("variation does not start with the move", mv,
+                         pv.get(0));
+            Board line = new Board(b);
+            for (Move move : pv) {
+                assertTrue("illegal move in variation", line.legalMove(move));
+                line.makeMove(move);
+            }
+            int left = 4 - pv.size();
+            assertTrue("variation ends early",
+                       left == 0 || line.getWinner() != null);
+            assertEquals("variation does not lead to the value",
+                         searcher.value(),
+                         Searcher.staticScore(line,
+                                              Searcher.WINNING_VALUE + left));
+        }
+    }
+
+    @Test
+    public void testNotifier() {
+        Searcher searcher = new Searcher(1);
+        Board b = randomPosition(15, 11);
+        ArrayList<Integer> depths = new ArrayList<>();
+        searcher.setNotifier((e) -> {
+            depths.add(e.depth());
+            assertEquals("notified with wrong variation",
+                         e.depth(), e.principalVariation().size());
+        });
+        searcher.findMove(b, 4, 60000, 60000);
+        assertEquals("wrong iterations notified", List.of(1, 2, 3, 4),
+                     depths);
+    }
+
+    @Test
+    public void testNoAllocation() {
+        com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean)
+            ManagementFactory.getThreadMXBean();
+        Searcher searcher = new Searcher();
+        Board b = randomPosition(10, 61);
+        searcher.findMove(b, 5);
+        searcher.table().clear();
+        long before = threads.getCurrentThreadAllocatedBytes();
+        searcher.findMove(b, 5);
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+        assertTrue("search too small to measure", searcher.nodes() > 10000);
+        assertTrue("search allocated " + allocated + " bytes",
+                   allocated < 1024);
+    }
+}
@@ -0,0 +1,388 @@
+/* Skeleton code copyright (C) 2008, 2022 Paul N. Hilfinger and the
+ * Regents of the University of California.  Do not distribute this or any
+ * derivative work without permission. */
+
+package ataxx;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static ataxx.PieceColor.*;
+
+/** An exact solver for endgames: a search to the end of the game that
+ *  finds either the final piece difference under best play or only
+ *  whether the game is won, drawn, or lost.
+ *
+ *  Values are final piece differences, from the point of view of the
+ *  player to move inside the search and of red outside it.  A
+ *  win/draw/loss solve is a search with the window -1 .. 1, which is
+ *  much cheaper than an exact one; its fail-soft value gives the sign of
+ *  the exact value.  There is no horizon: the search stops only where
+ *  the game does, including after JUMP_LIMIT consecutive jumps (see
+ *  Board.computeWinner).  Since keys cover the jump count, this rule is
+ *  sound in the hash table.  The depth is bounded by the length of the
+ *  longest game that can remain (see Board.maxMoves).
+ *
+ *  Moves are ordered by the hash move first, then by a weighted sum of
+ *  the pieces they gain, the number of squares the opponent can then
+ *  reach (fewest first, so that forced lines are searched first), and
+ *  whether they move into a region of empty squares (connected by
+ *  adjacency) with an odd number of squares.  The last player to move
+ *  into such a region usually keeps it, and an odd region lets the
+ *  player to move be that player.  Counting replies takes a move and its
+ *  undo, so it is done only with at least FASTEST_FIRST empty squares.
+ *
+ *  The solver has its own hash table, a TranspositionTable whose entries
+ *  are bounds on final piece differences, at depth the number of empty
+ *  squares, so that larger subtrees are kept in preference.  A solve
+ *  that runs out of time is abandoned, and leaves the results of the
+ *  last completed solve in place.
+ *  @author J. Masoudi
+ */
+class Solver {
+
+    /** The AI tries to solve positions with at most this many empty
+     *  squares (see AI.solve).  Jumps let the losing side prolong the
+     *  game, so that solves with even two empty squares often take more
+     *  than a second, while with one they take about a millisecond,
+     *  well within the AI's share of its time (see SolverTest). */
+    static final int EMPTIES = 1;
+
+    /** Most empty squares of positions that solve accepts. */
+    static final int MAX_EMPTIES = 16;
+
+    /** Number of empty squares from which moves are ordered by the
+     *  opponent's replies. */
+    static final int FASTEST_FIRST = 5;
+
+    /** Default size of the hash table, in megabytes. */
+    static final int DEFAULT_TABLE_SIZE = 16;
+
+    /** A value exceeding any final piece difference. */
+    static final int INFTY = Squares.SIZE + 1;
+
+    /** A solver whose hash table occupies at most TABLESIZE
+     *  megabytes. */
+    Solver(int tableSize) {
+        /* One row per ply of the longest game from MAX_EMPTIES empty
+         * squares, and one for its final position. */
+        int plies = Board.maxMoves(MAX_EMPTIES) + 1;
+        _moves = new int[plies][Board.MAX_LEGAL_MOVES];
+        _scores = new int[plies][Board.MAX_LEGAL_MOVES];
+        _table = new TranspositionTable(tableSize);
+    }
+
+    /** Return a best move for the player to move on BOARD, which has at
+     *  most MAX_EMPTIES empty squares, found by an exact solve if EXACT,
+     *  and otherwise by a win/draw/loss solve, taking at most about LIMIT
+     *  milliseconds.  Return null if the game is over or time runs out.
+     *  BOARD is used as scratch space and is restored before
+     *  returning. */
+    Move solve(Board board, boolean exact, long limit) {
+        if (board.totalOpen() > MAX_EMPTIES) {
+            throw new IllegalArgumentException("too many empty squares");
+        }
+        if (board.computeWinner() != null) {
+            return null;
+        }
+        long start = System.nanoTime();
+        _deadline = start + limit * Searcher.MILLIS;
+        _aborted = false;
+        _nodes = _probes = _hits = _cutoffs = _firstMoveCutoffs = 0;
+        _empties = board.totalOpen();
+        _exactSolve = exact;
+        _table.newSearch();
+        _rootMove = 0;
+        int window = exact ? INFTY : 1;
+        int score = solve(board, 0, -window, window);
+        _time = System.nanoTime() - start;
+        if (_aborted) {
+            return null;
+        }
+        _root = new Board(board);
+        _bestMove = _rootMove;
+        _exact = exact;
+        score = exact ? score : Integer.signum(score);
+        _value = board.whoseMove() == RED ? score : -score;
+        return board.toMove(_bestMove);
+    }
+
+    /** Return the value found by the last completed solve, from red's
+     *  point of view: the final piece difference if it was exact, and
+     *  otherwise 1, 0, or -1 for a red win, a draw, or a blue win. */
+    int value() {
+        return _value;
+    }
+
+    /** Return true iff the last completed solve was exact. */
+    boolean exact() {
+        return _exact;
+    }
+
+    /** Return the principal variation of the last completed solve, as far
+     *  as the hash table records it. */
+    List<Move> principalVariation() {
+        ArrayList<Move> result = new ArrayList<>();
+        if (_root == null) {
+            return result;
+        }
+        Board board = new Board(_root);
+        int move = _bestMove;
+        while (move != 0 && result.size() < Searcher.MAX_PLY) {
+            Move mv = board.toMove(move);
+            if (mv == null || !board.legalMove(mv)) {
+                break;
+            }
+            result.add(mv);
+            board.makeMove(mv);
+            if (board.getWinner() != null) {
+                break;
+            }
+            long entry = _table.probe(board.key());
+            move = entry == TranspositionTable.MISS ? 0
+                : TranspositionTable.move(entry);
+        }
+        return result;
+    }
+
+    /** Return the number of positions visited by the last solve. */
+    long nodes() {
+        return _nodes;
+    }
+
+    /** Return the time taken by the last solve, in nanoseconds. */
+    long time() {
+        return _time;
+    }
+
+    /** Return my hash table. */
+    TranspositionTable table() {
+        return _table;
+    }
+
+    /** Return a one-line summary of the statistics of the last solve. */
+    String statistics() {
+        return String.format("%s %d empties, %s: %d nodes in %.1f msec, "
+                             + "%.1f%% of cutoffs on first move; table "
+                             + "%dMB: %d probes, %.1f%% hits",
+                             _aborted ? "gave up on" : "solved", _empties,
+                             _exactSolve ? "exact" : "win/draw/loss",
+                             _nodes, _time * 1e-6,
+                             percent(_firstMoveCutoffs, _cutoffs),
+                             _table.megabytes(), _probes,
+                             percent(_hits, _probes));
+    }
+
+    /** Return the fail-soft value of BOARD, PLY plies below the root,
+     *  from the point of view of the player to move, with the window
+     *  ALPHA to BETA, and at the root, set _rootMove to the best move.
+     *  If the time limit passes, sets _aborted and returns 0. */
+    private int solve(Board board, int ply, int alpha, int beta) {
+        _nodes += 1;
+        if ((_nodes & CHECK_INTERVAL) == 0
+            && System.nanoTime() > _deadline) {
+            _aborted = true;
+        }
+        if (_aborted) {
+            return 0;
+        }
+        if (board.computeWinner() != null) {
+            int difference = board.redPieces() - board.bluePieces();
+            return board.whoseMove() == RED ? difference : -difference;
+        }
+        long key = board.key();
+        long entry = _table.probe(key);
+        int hashMove = 0;
+        _probes += 1;
+        if (entry != TranspositionTable.MISS) {
+            _hits += 1;
+            hashMove = TranspositionTable.move(entry);
+            int score = TranspositionTable.score(entry);
+            int bound = TranspositionTable.bound(entry);
+            if (ply > 0
+                && (bound == TranspositionTable.EXACT
+                    || bound == TranspositionTable.LOWER && score >= beta
+                    || bound == TranspositionTable.UPPER
+                       && score <= alpha)) {
+                return score;
+            }
+        }
+        int[] moves = _moves[ply];
+        int numMoves = board.legalMoves(moves, 0);
+        scoreMoves(board, moves, numMoves, ply, hashMove);
+        int alpha0 = alpha;
+        int best = 0;
+        int bestScore = -INFTY;
+        for (int i = 0; i < numMoves; i += 1) {
+            selectMove(moves, numMoves, ply, i);
+            int move = moves[i];
+            board.makeMoveUnchecked(move);
+            int score;
+            if (i == 0) {
+                score = -solve(board, ply + 1, -beta, -alpha);
+            } else {
+                score = -solve(board, ply + 1, -alpha - 1, -alpha);
+                if (score > alpha && score < beta) {
+                    score = -solve(board, ply + 1, -beta, -alpha);
+                }
+            }
+            board.undoUnchecked();
+            if (_aborted) {
+                return 0;
+            }
+            if (score > bestScore) {
+                bestScore = score;
+                best = move;
+                if (score > alpha) {
+                    alpha = score;
+                    if (alpha >= beta) {
+                        _cutoffs += 1;
+                        if (i == 0) {
+                            _firstMoveCutoffs += 1;
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+        int bound = bestScore <= alpha0 ? TranspositionTable.UPPER
+            : bestScore >= beta ? TranspositionTable.LOWER
+            : TranspositionTable.EXACT;
+        _table.store(key, board.totalOpen(), bound, bestScore, best);
+        if (ply == 0) {
+            _rootMove = best;
+        }
+        return bestScore;
+    }
+
+    /** Set _scores[PLY][0 .. NUMMOVES-1] to the ordering scores of the
+     *  packed moves MOVES[0 .. NUMMOVES-1] from BOARD, where HASHMOVE is
+     *  the best move recorded for BOARD in the hash table (0 if none), as
+     *  described in the class comment. */
+    private void scoreMoves(Board board, int[] moves, int numMoves, int ply,
+                            int hashMove) {
+        int[] scores = _scores[ply];
+        if (numMoves == 1) {
+            scores[0] = 0;
+            return;
+        }
+        boolean replies = board.totalOpen() >= FASTEST_FIRST;
+        long odd = oddRegions(board.empties());
+        for (int i = 0; i < numMoves; i += 1) {
+            int move = moves[i];
+            if (move == hashMove) {
+                scores[i] = HASH_MOVE_SCORE;
+                continue;
+            }
+            int gain = board.captures(move) + (Move.isJump(move) ? 0 : 1);
+            int score = GAIN_WEIGHT * gain;
+            if ((odd & (1L << Move.to(move))) != 0) {
+                score += PARITY_WEIGHT;
+            }
+            if (replies) {
+                board.makeMoveUnchecked(move);
+                score -= Squares.count(board.frontier(board.whoseMove()));
+                board.undoUnchecked();
+            }
+            scores[i] = score;
+        }
+    }
+
+    /** Return the union of the regions of EMPTY, sets of squares
+     *  connected by adjacency, that have an odd number of squares. */
+    private static long oddRegions(long empty) {
+        long result = 0;
+        while (empty != 0) {
+            long region = empty & -empty;
+            while (true) {
+                long grown = (region | Squares.clones(region)) & empty;
+                if (grown == region) {
+                    break;
+                }
+                region = grown;
+            }
+            if ((Squares.count(region) & 1) != 0) {
+                result |= region;
+            }
+            empty ^= region;
+        }
+        return result;
+    }
+
+    /** Move the highest-scoring of the packed moves MOVES[I .. NUMMOVES-1]
+     *  into MOVES[I], using the scores in _scores[PLY] (see scoreMoves),
+     *  which are permuted along with MOVES. */
+    private void selectMove(int[] moves, int numMoves, int ply, int i) {
+        int[] scores = _scores[ply];
+        int k = i;
+        for (int j = i + 1; j < numMoves; j += 1) {
+            if (scores[j] > scores[k]) {
+                k = j;
+            }
+        }
+        if (k != i) {
+            int move = moves[k], score = scores[k];
+            moves[k] = moves[i];
+            scores[k] = scores[i];
+            moves[i] = move;
+            scores[i] = score;
+        }
+    }
+
+    /** Return 100 * PART / WHOLE, or 0 if WHOLE is 0. */
+    private static double percent(long part, long whole) {
+        return whole == 0 ? 0 : 100.0 * part / whole;
+    }
+
+    /** Ordering weights of a piece gained and of a move into an odd
+     *  region, relative to one square the opponent can reach. */
+    private static final int GAIN_WEIGHT = 4, PARITY_WEIGHT = 2;
+
+    /** Ordering score of the hash move. */
+    private static final int HASH_MOVE_SCORE = Integer.MAX_VALUE;
+
+    /** The clock is checked whenever the node count has none of these
+     *  bits set. */
+    private static final long CHECK_INTERVAL = 1023;
+
+    /** Move buffers and their ordering scores, indexed by ply. */
+    private final int[][] _moves, _scores;
+
+    /** My hash table. */
+    private final TranspositionTable _table;
+
+    /** Time (as from System.nanoTime) at which to abandon the current
+     *  solve. */
+    private long _deadline;
+
+    /** True iff the current solve has been abandoned. */
+    private boolean _aborted;
+
+    /** Best move at the root found by the current solve. */
+    private int _rootMove;
+
+    /** Numbers of positions visited, of hash-table probes and hits, and
+     *  of cutoffs, and of those on the first move, in the last solve. */
+    private long _nodes, _probes, _hits, _cutoffs, _firstMoveCutoffs;
+
+    /** Nanoseconds taken by the last solve. */
+    private long _time;
+
+    /** Number of empty squares of the position of the last solve. */
+    private int _empties;
+
+    /** True iff the last solve was exact. */
+    private boolean _exactSolve;
+
+    /** Position of the last completed solve, or null if none. */
+    private Board _root;
+
+    /** Best move (packed) found by the last completed solve. */
+    private int _bestMove;
+
+    /** True iff the last completed solve was exact. */
+    private boolean _exact;
+
+    /** Value of the last completed solve (see value). */
+    private int _value;
+}
@@ -0,0 +1,138 @@
+/* Skeleton code copyright (C) 2008, 2022 Paul N. Hilfinger and the
+ * Regents of the University of California.  Do not distribute this or any
+ * derivative work without permission. */
+
+package ataxx;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/** Tests of the Solver class.
+ *  @author J. Masoudi
+ */
+public class SolverTest {
+
+    /** Time limit of the solves of the tests, in milliseconds. */
+    static final long LIMIT = 2000;
+
+    /** Return a position reached by random play using SEED in which the
+     *  game is not over and there are at most EMPTIES empty squares. */
+    static Board endgame(int empties, long seed) {
+        Random random = new Random(seed);
+        int[] moves = new int[Board.MAX_LEGAL_MOVES];
+        while (true) {
+            Board b = new Board();
+            while (b.computeWinner() == null) {
+                if (b.totalOpen() <= empties) {
+                    return new Board(b);
+                }
+                int count = b.legalMoves(moves, 0);
+                int move = moves[random.nextInt(count)];
+                /* Favor extends, so that the board fills up. */
+                if (Move.isJump(move) && random.nextInt(4) != 0) {
+                    move = moves[0];
+                }
+                b.makeMove(move);
+            }
+        }
+    }
+
+    @Test
+    public void testConsistency() {
+        Solver solver = new Solver(1);
+        int solved = 0;
+        for (int k = 0; k < 20; k += 1) {
+            Board b = endgame(1, k);
+            Board b0 = new Board(b);
+            if (solver.solve(b, false, LIMIT) == null) {
+                continue;
+            }
+            assertEquals("board changed", b0, b);
+            int outcome = solver.value();
+            assertFalse("win/draw/loss solve called exact", solver.exact());
+            Move mv = solver.solve(b, true, LIMIT);
+            if (mv == null) {
+                continue;
+            }
+            solved += 1;
+            int value = solver.value();
+            assertTrue("exact solve not exact", solver.exact());
+            assertEquals("outcomes differ", outcome, Integer.signum(value));
+            assertTrue("illegal move found", b.legalMove(mv));
+            List<Move> pv = solver.principalVariation();
+            assertEquals("variation does not start with the move", mv,
+                         pv.get(0));
+            b.makeMove(mv);
+            if (b.getWinner() != null) {
+                assertEquals("wrong final difference", value,
+                             b.redPieces() - b.bluePieces());
+            } else if (solver.solve(b, true, LIMIT) != null) {
+                assertEquals("best move changed value", value,
+                             solver.value());
+            }
+        }
+        assertTrue("too few positions solved", solved >= 10);
+    }
+
+    @Test
+    public void testLastSquare() {
+        for (int k = 0; k < 20; k += 1) {
+            Board b = endgame(1, k);
+            Solver solver = new Solver(1);
+            Move mv = solver.solve(b, true, LIMIT);
+            if (mv == null || mv.isJump() || mv.isPass()) {
+                continue;
+            }
+            b.makeMove(mv);
+            assertNotNull("filling the board did not end the game",
+                          b.getWinner());
+            assertEquals("wrong final difference", solver.value(),
+                         b.redPieces() - b.bluePieces());
+        }
+    }
+
+    @Test
+    public void testTimeLimit() {
+        Solver solver = new Solver(1);
+        Board b = endgame(1, 3);
+        Move mv = solver.solve(b, true, LIMIT);
+        int value = solver.value();
+        Board many = endgame(Solver.MAX_EMPTIES, 5);
+        assertNull("solved too many empty squares",
+                   solver.solve(many, true, 1));
+        if (mv != null) {
+            assertEquals("abandoned solve changed value", value,
+                         solver.value());
+            assertTrue("abandoned solve changed kind", solver.exact());
+        }
+    }
+
+    @Test
+    public void testAIThreshold() {
+        Solver solver = new Solver(Solver.DEFAULT_TABLE_SIZE);
+        long share = AI.DEFAULT_TIME_LIMIT / AI.SOLVER_SHARE;
+        for (int k = 0; k < 20; k += 1) {
+            Board b = endgame(Solver.EMPTIES, 100 + k);
+            long start = System.nanoTime();
+            assertNotNull("win/draw/loss solve not done in time",
+                          solver.solve(b, false, share));
+            long left = share - (System.nanoTime() - start) / Searcher.MILLIS;
+            assertNotNull("exact solve not done in time",
+                          solver.solve(b, true, Math.max(1, left)));
+        }
+    }
+
+    @Test
+    public void testTooManyEmpties() {
+        try {
+            new Solver(1).solve(new Board(), false, LIMIT);
+            fail("solved the initial position");
+        } catch (IllegalArgumentException excp) {
+            /* Expected. */
+        }
+    }
+
+}
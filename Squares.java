@@ -0,0 +1,165 @@
+/* Skeleton code copyright (C) 2008, 2022 Paul N. Hilfinger and the
+ * Regents of the University of California.  Do not distribute this or any
+ * derivative work without permission. */
+
+package ataxx;
+
+import java.util.Arrays;
+
+import static ataxx.Move.SIDE;
+import static ataxx.Move.EXTENDED_SIDE;
+
+/** Static tables relating the linearized indices used by Board and Move
+ *  to positions in a bitboard.
+ *
+ *  A bitboard is a long in which bit number 7 * R + C (for 0 <= R, C < 7)
+ *  stands for the square in column 'a' + C and row '1' + R.  Only the low
+ *  49 bits are ever used, so that sets of squares (red pieces, empty
+ *  squares, the squares a piece may clone to, etc.) can be manipulated
+ *  with a handful of logical operations rather than by loops over the
+ *  board.  Border squares of the extended board have no bit.
+ *  @author J. Masoudi
+ */
+class Squares {
+
+    /** Number of playable squares. */
+    static final int SIZE = SIDE * SIDE;
+
+    /** The set of all playable squares. */
+    static final long ALL = (1L << SIZE) - 1;
+
+    /** Return the bit number of the square with linearized index SQ, or
+     *  -1 if SQ is in the border. */
+    static int bit(int sq) {
+        return BIT_OF[sq];
+    }
+
+    /** Return the linearized index of the square with bit number BIT. */
+    static int index(int bit) {
+        return INDEX_OF[bit];
+    }
+
+    /** Return the bit number of the square at column C, row R, where
+     *  'a' <= C <= 'g' and '1' <= R <= '7'. */
+    static int bit(char c, char r) {
+        return (r - '1') * SIDE + (c - 'a');
+    }
+
+    /** Return the column ('a' to 'g') of the square with bit number BIT. */
+    static char col(int bit) {
+        return (char) ('a' + bit % SIDE);
+    }
+
+    /** Return the row ('1' to '7') of the square with bit number BIT. */
+    static char row(int bit) {
+        return (char) ('1' + bit / SIDE);
+    }
+
+    /** Return the set of squares adjacent to the square with bit number
+     *  BIT: those that a piece on BIT may extend (clone) to. */
+    static long clones(int bit) {
+        return CLONES[bit];
+    }
+
+    /** Return the set of squares exactly two rows and/or columns away
+     *  from the square with bit number BIT: those that a piece on BIT
+     *  may jump to. */
+    static long jumps(int bit) {
+        return JUMPS[bit];
+    }
+
+    /** Return the set of squares within two rows and columns of the
+     *  square with bit number BIT, excluding BIT itself. */
+    static long reach(int bit) {
+        return CLONES[bit] | JUMPS[bit];
+    }
+
+    /** Return the squares in SET together with all squares adjacent to
+     *  some square in SET. */
+    static long clones(long set) {
+        long h = set | ((set & ~COL_G) << 1) | ((set & ~COL_A) >>> 1);
+        return (h | (h << SIDE) | (h >>> SIDE)) & ALL;
+    }
+
+    /** Return the squares in SET together with all squares within two
+     *  rows and columns of some square in SET.  This takes a constant
+     *  number of shifts, rather than a loop over SET. */
+    static long reach(long set) {
+        long h = set | ((set & ~COL_G) << 1) | ((set & ~COL_A) >>> 1)
+            | ((set & ~(COL_F | COL_G)) << 2)
+            | ((set & ~(COL_A | COL_B)) >>> 2);
+        return (h | (h << SIDE) | (h >>> SIDE)
+                | (h << 2 * SIDE) | (h >>> 2 * SIDE)) & ALL;
+    }
+
+    /** Return the bit number of the lowest-numbered square in SET, which
+     *  must not be empty. */
+    static int first(long set) {
+        return Long.numberOfTrailingZeros(set);
+    }
+
+    /** Return the bit number of the Kth (from 0) lowest-numbered square
+     *  in SET, which must have more than K members. */
+    static int nth(long set, int k) {
+        for (; k > 0; k -= 1) {
+            set &= set - 1;
+        }
+        return first(set);
+    }
+
+    /** Return the number of squares in SET. */
+    static int count(long set) {
+        return Long.bitCount(set);
+    }
+
+    /** Squares in columns a, b, f, and g. */
+    private static final long COL_A, COL_B, COL_F, COL_G;
+
+    /** Bit numbers indexed by linearized index (-1 for border). */
+    private static final int[] BIT_OF =
+        new int[EXTENDED_SIDE * EXTENDED_SIDE];
+    /** Linearized indices indexed by bit number. */
+    private static final int[] INDEX_OF = new int[SIZE];
+    /** Ring-1 neighbor masks, indexed by bit number. */
+    private static final long[] CLONES = new long[SIZE];
+    /** Ring-2 neighbor masks, indexed by bit number. */
+    private static final long[] JUMPS = new long[SIZE];
+
+    static {
+        long colA;
+        colA = 0;
+        for (int r = 0; r < SIDE; r += 1) {
+            colA |= 1L << (r * SIDE);
+        }
+        COL_A = colA;
+        COL_B = colA << 1;
+        COL_F = colA << (SIDE - 2);
+        COL_G = colA << (SIDE - 1);
+
+        Arrays.fill(BIT_OF, -1);
+        for (int r = 0; r < SIDE; r += 1) {
+            for (int c = 0; c < SIDE; c += 1) {
+                int b = r * SIDE + c;
+                int sq = (r + 2) * EXTENDED_SIDE + c + 2;
+                BIT_OF[sq] = b;
+                INDEX_OF[b] = sq;
+                for (int dr = -2; dr <= 2; dr += 1) {
+                    for (int dc = -2; dc <= 2; dc += 1) {
+                        int r1 = r + dr, c1 = c + dc;
+                        if ((dr == 0 && dc == 0)
+                            || r1 < 0 || r1 >= SIDE
+                            || c1 < 0 || c1 >= SIDE) {
+                            continue;
+                        }
+                        long mask = 1L << (r1 * SIDE + c1);
+                        if (Math.abs(dr) <= 1 && Math.abs(dc) <= 1) {
+                            CLONES[b] |= mask;
+                        } else {
+                            JUMPS[b] |= mask;
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,174 @@
+/* Skeleton code copyright (C) 2008, 2022 Paul N. Hilfinger and the
+ * Regents of the University of California.  Do not distribute this or any
+ * derivative work without permission. */
+
+package ataxx;
+
+import static ataxx.PieceColor.*;
+import static ataxx.Move.SIDE;
+
+/** The eight symmetries (rotations and reflections) of the board, and
+ *  symmetry-canonical position keys.
+ *
+ *  The rules of Ataxx do not distinguish a position from its rotations
+ *  and reflections, and Board.setBlock places blocks in symmetric sets,
+ *  so positions related by a symmetry have the same value and mirrored
+ *  best moves.  The canonical key of a position is the least of the
+ *  Zobrist keys (see Zobrist) of its eight images, so that symmetric
+ *  positions share one key.  Transposition tables, opening books, and
+ *  game databases can use it to share entries among symmetric positions,
+ *  using the transform that produced it to map moves to and from the
+ *  canonical orientation.
+ *
+ *  Transforms are numbered 0 to COUNT - 1, with 0 the identity.  Each
+ *  acts on a bitboard with one table lookup per row, and the key of an
+ *  image is computed from the same row patterns without first building
+ *  the image.
+ *  @author J. Masoudi
+ */
+class Symmetry {
+
+    /** Number of symmetries. */
+    static final int COUNT = 8;
+
+    /** The identity transform. */
+    static final int IDENTITY = 0;
+
+    /** Return the bit number of the image of the square with bit number
+     *  BIT under transform T. */
+    static int square(int t, int bit) {
+        int r = bit / SIDE, c = bit % SIDE, m = SIDE - 1;
+        switch (t) {
+        case 0:
+            return bit;
+        case 1:
+            return c * SIDE + m - r;
+        case 2:
+            return (m - r) * SIDE + m - c;
+        case 3:
+            return (m - c) * SIDE + r;
+        case 4:
+            return r * SIDE + m - c;
+        case 5:
+            return (m - r) * SIDE + c;
+        case 6:
+            return c * SIDE + r;
+        case 7:
+            return (m - c) * SIDE + m - r;
+        default:
+            throw new IllegalArgumentException("bad transform");
+        }
+    }
+
+    /** Return the transform that undoes transform T. */
+    static int inverse(int t) {
+        return t == 1 ? 3 : t == 3 ? 1 : t;
+    }
+
+    /** Return the image of the set of squares SET under transform T. */
+    static long transform(int t, long set) {
+        long[][] rows = IMAGES[t];
+        long result;
+        result = 0;
+        for (int r = 0; r < SIDE; r += 1) {
+            result |= rows[r][(int) (set >>> (r * SIDE)) & ROW_MASK];
+        }
+        return result;
+    }
+
+    /** Return the image of packed move MOVE under transform T. */
+    static int move(int t, int move) {
+        if (Move.isPass(move)) {
+            return move;
+        }
+        return Move.pack(square(t, Move.from(move)),
+                         square(t, Move.to(move)), Move.isJump(move));
+    }
+
+    /** Return the Zobrist key that the image of BOARD under transform T
+     *  would have. */
+    static long key(int t, Board board) {
+        long[][][] keys = KEYS[t];
+        long key = Zobrist.side(board.whoseMove())
+            ^ Zobrist.jumps(board.numJumps());
+        long red = board.pieces(RED), blue = board.pieces(BLUE),
+            blocks = board.blocks();
+        for (int r = 0; r < SIDE; r += 1) {
+            int shift = r * SIDE;
+            key ^= keys[0][r][(int) (red >>> shift) & ROW_MASK]
+                ^ keys[1][r][(int) (blue >>> shift) & ROW_MASK];
+        }
+        for (int r = 0; blocks != 0 && r < SIDE; r += 1) {
+            key ^= keys[2][r][(int) (blocks >>> (r * SIDE)) & ROW_MASK];
+        }
+        return key;
+    }
+
+    /** Return the canonical key of BOARD combined with the transform
+     *  that takes BOARD to its canonical orientation.  The low three bits
+     *  of the result hold the transform (see transformOf), and the rest
+     *  the key (see keyOf).  Positions related by a symmetry have the
+     *  same key.  When several transforms give the canonical key (because
+     *  the position is itself symmetric), the lowest-numbered is used. */
+    static long canonical(Board board) {
+        long best = Long.MAX_VALUE;
+        for (int t = 0; t < COUNT; t += 1) {
+            long k = (key(t, board) & ~TRANSFORM_MASK) | t;
+            if (k < best) {
+                best = k;
+            }
+        }
+        return best;
+    }
+
+    /** Return the canonical key part of CANONICAL, a value returned by
+     *  canonical. */
+    static long keyOf(long canonical) {
+        return canonical & ~TRANSFORM_MASK;
+    }
+
+    /** Return the transform part of CANONICAL, a value returned by
+     *  canonical. */
+    static int transformOf(long canonical) {
+        return (int) (canonical & TRANSFORM_MASK);
+    }
+
+    /** Mask for the bits of one row of a bitboard. */
+    private static final int ROW_MASK = (1 << SIDE) - 1;
+
+    /** Mask for the transform in a canonical key. */
+    private static final long TRANSFORM_MASK = COUNT - 1;
+
+    /** IMAGES[T][R][P] is the image under transform T of the set of
+     *  squares in row R whose columns are given by the bits of P. */
+    private static final long[][][] IMAGES =
+        new long[COUNT][SIDE][1 << SIDE];
+
+    /** KEYS[T][K][R][P] is the Zobrist key component of the image under
+     *  transform T of red pieces (K = 0), blue pieces (K = 1), or blocks
+     *  (K = 2) on the squares in row R whose columns are given by the bits
+     *  of P. */
+    private static final long[][][][] KEYS =
+        new long[COUNT][3][SIDE][1 << SIDE];
+
+    static {
+        PieceColor[] kinds = { RED, BLUE, BLOCKED };
+        for (int t = 0; t < COUNT; t += 1) {
+            for (int r = 0; r < SIDE; r += 1) {
+                for (int p = 0; p < 1 << SIDE; p += 1) {
+                    for (int c = 0; c < SIDE; c += 1) {
+                        if ((p & (1 << c)) == 0) {
+                            continue;
+                        }
+                        int image = square(t, r * SIDE + c);
+                        IMAGES[t][r][p] |= 1L << image;
+                        for (int k = 0; k < kinds.length; k += 1) {
+                            KEYS[t][k][r][p] ^=
+                                Zobrist.square(kinds[k], image);
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
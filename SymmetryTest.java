@@ -0,0 +1,85 @@
+/* Skeleton code copyright (C) 2008, 2022 Paul N. Hilfinger and the
+ * Regents of the University of California.  Do not distribute this or any
+ * derivative work without permission. */
+
+package ataxx;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import static ataxx.PieceColor.*;
+import static org.junit.Assert.*;
+
+/** Tests of the Symmetry class.
+ *  @author J. Masoudi
+ */
+public class SymmetryTest {
+
+    /** Transforms that map the initial position to itself. */
+    private static final int[] START_SYMMETRIES = { 0, 2, 6, 7 };
+
+    @Test
+    public void testSquares() {
+        for (int t = 0; t < Symmetry.COUNT; t += 1) {
+            long image = 0;
+            for (int sq = 0; sq < Squares.SIZE; sq += 1) {
+                int sq1 = Symmetry.square(t, sq);
+                assertEquals("inverse does not undo transform", sq,
+                             Symmetry.square(Symmetry.inverse(t), sq1));
+                assertEquals("wrong image of single square", 1L << sq1,
+                             Symmetry.transform(t, 1L << sq));
+                image |= 1L << sq1;
+            }
+            assertEquals("transform is not a permutation", Squares.ALL,
+                         image);
+        }
+        assertEquals("b1 -> a2 under transpose", Squares.bit('a', '2'),
+                     Symmetry.square(6, Squares.bit('b', '1')));
+        assertEquals("b1 -> f7 under half turn", Squares.bit('f', '7'),
+                     Symmetry.square(2, Squares.bit('b', '1')));
+    }
+
+    @Test
+    public void testKeys() {
+        Random random = new Random(9);
+        for (int game = 0; game < 5; game += 1) {
+            Board b = new Board();
+            b.setBlock("b3");
+            Board[] images = new Board[START_SYMMETRIES.length];
+            for (int i = 0; i < images.length; i += 1) {
+                images[i] = new Board();
+                images[i].setBlock(START_SYMMETRIES[i] < 6 ? "b3" : "c2");
+            }
+            int[] moves = new int[Board.MAX_LEGAL_MOVES];
+            while (b.getWinner() == null) {
+                long canonical = Symmetry.canonical(b);
+                assertEquals("wrong identity key", b.key(),
+                             Symmetry.key(Symmetry.IDENTITY, b));
+                assertEquals("canonical key is not an image key",
+                             Symmetry.keyOf(canonical),
+                             Symmetry.keyOf(Symmetry.key(
+                                 Symmetry.transformOf(canonical), b)));
+                for (int i = 0; i < images.length; i += 1) {
+                    int t = START_SYMMETRIES[i];
+                    assertEquals("wrong image key", images[i].key(),
+                                 Symmetry.key(t, b));
+                    assertEquals("wrong image of red",
+                                 images[i].pieces(RED),
+                                 Symmetry.transform(t, b.pieces(RED)));
+                    assertEquals("symmetric positions have different keys",
+                                 Symmetry.keyOf(canonical),
+                                 Symmetry.keyOf(
+                                     Symmetry.canonical(images[i])));
+                }
+                int n = b.legalMoves(moves, 0, false);
+                int move = moves[random.nextInt(n)];
+                b.makeMove(move);
+                for (int i = 0; i < images.length; i += 1) {
+                    images[i].makeMove(
+                        Symmetry.move(START_SYMMETRIES[i], move));
+                }
+            }
+        }
+    }
+}
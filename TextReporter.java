@@ -4,6 +4,8 @@
 
 package ataxx;
 
+import java.util.List;
+
 import static ataxx.PieceColor.*;
 
 /** An object that formats and sends messages and errors by printing them.
@@ -24,6 +26,35 @@ class TextReporter implements Reporter {
         msg("* %s moves %s.", player, move);
     }
 
+    @Override
+    public void announcePV(PieceColor player, int depth, int value,
+                           List<Move> pv) {
+        StringBuilder line = new StringBuilder();
+        for (Move move : pv) {
+            line.append(' ').append(move);
+        }
+        msg("* %s depth %d value %d:%s", player, depth, value, line);
+    }
+
+    @Override
+    public void announceSolved(PieceColor player, int value, boolean exact,
+                               List<Move> pv) {
+        StringBuilder line = new StringBuilder();
+        for (Move move : pv) {
+            line.append(' ').append(move);
+        }
+        String result;
+        if (value == 0) {
+            result = "draw";
+        } else if (exact) {
+            result = String.format("%s wins by %d", value > 0 ? RED : BLUE,
+                                   Math.abs(value));
+        } else {
+            result = String.format("%s wins", value > 0 ? RED : BLUE);
+        }
+        msg("* %s solved: %s:%s", player, result, line);
+    }
+
     @Override
     public void msg(String format, Object... args) {
         System.out.printf(format, args);
@@ -0,0 +1,155 @@
+/* Skeleton code copyright (C) 2008, 2022 Paul N. Hilfinger and the
+ * Regents of the University of California.  Do not distribute this or any
+ * derivative work without permission. */
+
+package ataxx;
+
+import java.util.Arrays;
+
+/** A fixed-size table of search results, indexed by Zobrist key (see
+ *  Board.key), used by Searcher to avoid searching transposed positions
+ *  again.
+ *
+ *  The table is a power-of-two number of buckets of two entries each,
+ *  stored in two parallel arrays of longs: the data of each entry, packed
+ *  into a single long (see the accessors below), and its check word, the
+ *  entry's full key XORed with its data.  The first entry of a bucket is
+ *  depth-preferred: it is replaced only by a result of at least the same
+ *  depth, a result for the same position, or any result once the search
+ *  that stored it is over.  Everything else goes into the second entry,
+ *  which is always replaced.
+ *
+ *  Several threads may probe and store at once without locking (see
+ *  Searcher.setThreads).  A thread may then see the check word of one
+ *  store with the data of another, but the pair is accepted only if the
+ *  check word XORed with the data gives the key probed for, which a
+ *  mismatched pair does not, except by a chance as rare as a collision
+ *  of two keys.  Probing and storing keep no counts of their own, so
+ *  that threads do not contend for them; searchers count for themselves.
+ *  @author J. Masoudi
+ */
+class TranspositionTable {
+
+    /** Bound types.  The stored score of an EXACT entry is the value of
+     *  the position, of a LOWER entry a lower bound on it, and of an UPPER
+     *  entry an upper bound on it. */
+    static final int EXACT = 1, LOWER = 2, UPPER = 3;
+
+    /** Returned by probe for a position not in the table. */
+    static final long MISS = 0;
+
+    /** Bytes used per bucket. */
+    static final int BUCKET_BYTES = 4 * Long.BYTES;
+
+    /** A new, empty table occupying at most MEGABYTES megabytes (but at
+     *  least one bucket). */
+    TranspositionTable(int megabytes) {
+        long buckets = Long.highestOneBit(
+            Math.max(1, ((long) megabytes << 20) / BUCKET_BYTES));
+        buckets = Math.min(buckets, 1 << 29);
+        _mask = (int) buckets - 1;
+        _checks = new long[2 * (int) buckets];
+        _data = new long[2 * (int) buckets];
+    }
+
+    /** Return the number of megabytes I occupy. */
+    int megabytes() {
+        return (int) (((long) _checks.length * 2 * Long.BYTES) >> 20);
+    }
+
+    /** Remove all entries. */
+    void clear() {
+        Arrays.fill(_checks, 0);
+        Arrays.fill(_data, 0);
+        _age = 0;
+    }
+
+    /** Indicate that a new search is starting, so that the
+     *  depth-preferred entries stored by earlier searches may be
+     *  replaced. */
+    void newSearch() {
+        _age = (_age + 1) & AGE_MASK;
+    }
+
+    /** Return the data stored for the position with key KEY, or MISS if
+     *  there is none. */
+    long probe(long key) {
+        int i = ((int) key & _mask) << 1;
+        long data = _data[i];
+        if ((_checks[i] ^ data) == key && data != MISS) {
+            return data;
+        }
+        data = _data[i + 1];
+        if ((_checks[i + 1] ^ data) == key && data != MISS) {
+            return data;
+        }
+        return MISS;
+    }
+
+    /** Store SCORE for the position with key KEY, where SCORE is a bound
+     *  of type BOUND on the value of the position found by a search of
+     *  DEPTH plies (0 <= DEPTH <= MAX_DEPTH) that found the packed move
+     *  MOVE best (0 if none). */
+    void store(long key, int depth, int bound, int score, int move) {
+        long data = (score & 0xffffffffL) | ((long) move << MOVE_SHIFT)
+            | ((long) depth << DEPTH_SHIFT) | ((long) bound << BOUND_SHIFT)
+            | ((long) _age << AGE_SHIFT);
+        int i = ((int) key & _mask) << 1;
+        long old = _data[i];
+        if (old == MISS || (_checks[i] ^ old) == key || depth >= depth(old)
+            || age(old) != _age) {
+            _checks[i] = key ^ data;
+            _data[i] = data;
+        } else {
+            _checks[i + 1] = key ^ data;
+            _data[i + 1] = data;
+        }
+    }
+
+    /** Return the score from DATA, a value returned by probe. */
+    static int score(long data) {
+        return (int) data;
+    }
+
+    /** Return the packed best move from DATA, a value returned by probe,
+     *  or 0 if none was recorded. */
+    static int move(long data) {
+        return (int) (data >>> MOVE_SHIFT) & MOVE_MASK;
+    }
+
+    /** Return the search depth from DATA, a value returned by probe. */
+    static int depth(long data) {
+        return (int) (data >>> DEPTH_SHIFT) & DEPTH_MASK;
+    }
+
+    /** Return the bound type from DATA, a value returned by probe. */
+    static int bound(long data) {
+        return (int) (data >>> BOUND_SHIFT) & BOUND_MASK;
+    }
+
+    /** Return the search age from DATA. */
+    private static int age(long data) {
+        return (int) (data >>> AGE_SHIFT) & AGE_MASK;
+    }
+
+    /** Maximum depth that can be stored. */
+    static final int MAX_DEPTH = 127;
+
+    /** Positions and sizes of the fields of a data word after the
+     *  score, which occupies the low 32 bits. */
+    private static final int
+        MOVE_SHIFT = 32, MOVE_MASK = (1 << 14) - 1,
+        DEPTH_SHIFT = 46, DEPTH_MASK = MAX_DEPTH,
+        BOUND_SHIFT = 53, BOUND_MASK = 3,
+        AGE_SHIFT = 55, AGE_MASK = 255;
+
+    /** Mask giving the bucket number from a key. */
+    private final int _mask;
+    /** The check word of each entry: its full key XORed with its data.
+     *  Entries 2k and 2k + 1 form bucket k. */
+    private final long[] _checks;
+    /** The packed data of each entry, or MISS for an empty entry. */
+    private final long[] _data;
+    /** The age of the current search. */
+    private int _age;
+}
@@ -0,0 +1,58 @@
+/* Skeleton code copyright (C) 2008, 2022 Paul N. Hilfinger and the
+ * Regents of the University of California.  Do not distribute this or any
+ * derivative work without permission. */
+
+package ataxx;
+
+import org.junit.Test;
+
+import static ataxx.TranspositionTable.*;
+import static org.junit.Assert.*;
+
+/** Tests of the TranspositionTable class.
+ *  @author J. Masoudi
+ */
+public class TranspositionTableTest {
+
+    @Test
+    public void testStore() {
+        TranspositionTable table = new TranspositionTable(1);
+        assertEquals("table too large", 1, table.megabytes());
+        long key = 0x123456789abcdefL;
+        int move = Move.pack(Squares.bit('a', '1'), Squares.bit('c', '2'),
+                             true);
+        assertEquals("found missing entry", MISS, table.probe(key));
+        table.store(key, 5, LOWER, -17, move);
+        long data = table.probe(key);
+        assertEquals("wrong score", -17, score(data));
+        assertEquals("wrong depth", 5, depth(data));
+        assertEquals("wrong bound", LOWER, bound(data));
+        assertEquals("wrong move", move, move(data));
+        assertEquals("found missing entry", MISS, table.probe(key + 1));
+    }
+
+    @Test
+    public void testReplacement() {
+        TranspositionTable table = new TranspositionTable(1);
+        long deep = 0x40, shallow = deep + (1L << 40),
+            other = deep + (2L << 40);
+        table.store(deep, 6, EXACT, 1, 0);
+        table.store(shallow, 2, EXACT, 2, 0);
+        assertEquals("deep entry replaced by shallow", 1,
+                     score(table.probe(deep)));
+        assertEquals("shallow entry not stored", 2,
+                     score(table.probe(shallow)));
+        table.store(other, 3, EXACT, 3, 0);
+        assertEquals("deep entry replaced by shallow", 1,
+                     score(table.probe(deep)));
+        assertEquals("always-replace entry kept", MISS,
+                     table.probe(shallow));
+        table.newSearch();
+        table.store(shallow, 1, UPPER, 4, 0);
+        assertEquals("entry from old search not replaced", MISS,
+                     table.probe(deep));
+        assertEquals("new entry not stored", 4, score(table.probe(shallow)));
+        table.clear();
+        assertEquals("clear left entry", MISS, table.probe(other));
+    }
+}
@@ -14,7 +14,14 @@ public class UnitTest {
      *  the arguments of runClasses to run other JUnit tests. */
     public static void main(String[] ignored) {
         textui.runClasses(CommandTest.class, MoveTest.class,
-                          BoardTest.class);
+                          BoardTest.class, SearcherTest.class,
+                          PerftTest.class, SymmetryTest.class,
+                          TranspositionTableTest.class, EvalCacheTest.class,
+                          YbwSearcherTest.class, MctsSearcherTest.class,
+                          PlayoutsTest.class,
+                          PositionalEvaluatorTest.class,
+                          NnueEvaluatorTest.class,
+                          PatternEvaluatorTest.class, SolverTest.class);
     }
 
 }
@@ -0,0 +1,476 @@
+/* Skeleton code copyright (C) 2008, 2022 Paul N. Hilfinger and the
+ * Regents of the University of California.  Do not distribute this or any
+ * derivative work without permission. */
+
+package ataxx;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import static ataxx.PieceColor.*;
+import static ataxx.Searcher.*;
+
+/** A parallel alpha-beta search using the "Young Brothers Wait" rule, in
+ *  a ForkJoinPool.  At each node, the first ("eldest") move is searched
+ *  alone, to establish a bound, and only then are the remaining moves
+ *  (its younger brothers) forked as separate tasks, each with its own
+ *  copy of the board, searched with that bound, and joined in order.  If
+ *  one of them causes a cutoff, the rest are cancelled: those not yet
+ *  started never run, and those running notice the cutoff at their next
+ *  node and return at once.  Nodes with fewer than MIN_SPLIT_DEPTH plies
+ *  to go are searched serially, since a task there would cost more than
+ *  it saves.
+ *
+ *  Unlike Searcher, which parallelizes by running independent searches
+ *  that share a transposition table, this search explores the same tree
+ *  as a serial alpha-beta search (with one thread it is one), apart from
+ *  the extra nodes searched with the weaker bounds available when
+ *  brothers run concurrently and before cancellations are noticed.  The
+ *  ratio of its node count to that of the same search with one thread
+ *  (the search overhead) and the ratio of their times (the speedup) are
+ *  therefore directly comparable.  It uses no transposition table, and
+ *  orders moves only by the number of pieces they gain.
+ *  @author J. Masoudi
+ */
+class YbwSearcher implements Engine {
+
+    /** Minimum depth (plies to go) of a node whose younger brothers are
+     *  searched in parallel. */
+    static final int MIN_SPLIT_DEPTH = 3;
+
+    /** A new searcher using one thread. */
+    YbwSearcher() {
+        setThreads(1);
+    }
+
+    @Override
+    public void setThreads(int threads) {
+        threads = Math.max(1, threads);
+        if (_pool != null && _pool.getParallelism() == threads) {
+            return;
+        }
+        if (_pool != null) {
+            _pool.shutdown();
+        }
+        _pool = new ForkJoinPool(threads);
+    }
+
+    /** {@inheritDoc}  This search is always full width, and ignores
+     *  TECHNIQUES. */
+    @Override
+    public void setPruning(int techniques) {
+    }
+
+    /** {@inheritDoc}  This search has no quiescence search, and ignores
+     *  THRESHOLD. */
+    @Override
+    public void setQuiescence(int threshold) {
+    }
+
+    @Override
+    public void setEvaluator(Evaluator evaluator) {
+        _evaluator = evaluator;
+    }
+
+    @Override
+    public Move findMove(Board board, int depth) {
+        startSearch(board);
+        _value = search(board, depth);
+        _depth = depth;
+        return _bestMove == 0 ? null : board.toMove(_bestMove);
+    }
+
+    @Override
+    public Move findMove(Board board, int maxDepth, long softLimit,
+                         long hardLimit) {
+        long start = System.nanoTime();
+        startSearch(board);
+        int best = 0, stable = 0;
+        for (int depth = 1; depth <= maxDepth; depth += 1) {
+            int value = search(board, depth);
+            if (_aborted) {
+                break;
+            }
+            stable = _bestMove == best ? stable + 1 : 0;
+            best = _bestMove;
+            _value = value;
+            _depth = depth;
+            _notifier.accept(this);
+            if (stopDeepening(value, depth, stable, System.nanoTime() - start,
+                              softLimit, hardLimit)) {
+                break;
+            }
+            _deadline = start + hardLimit * MILLIS;
+        }
+        _bestMove = best;
+        return best == 0 ? null : board.toMove(best);
+    }
+
+    @Override
+    public int value() {
+        return _value;
+    }
+
+    @Override
+    public int depth() {
+        return _depth;
+    }
+
+    @Override
+    public long nodes() {
+        return _nodes.sum();
+    }
+
+    /** Return the number of tasks forked by the last findMove. */
+    long forks() {
+        return _forks.sum();
+    }
+
+    @Override
+    public String statistics() {
+        return String.format("ybw: depth %d, %d nodes, %d threads, "
+                             + "%d tasks forked", _depth, nodes(),
+                             _pool.getParallelism(), forks());
+    }
+
+    /** {@inheritDoc}  This search keeps no variation beyond the move
+     *  it chose. */
+    @Override
+    public List<Move> principalVariation() {
+        return _bestMove == 0 ? List.of() : List.of(_root.toMove(_bestMove));
+    }
+
+    @Override
+    public void setNotifier(Consumer<Engine> notify) {
+        _notifier = notify;
+    }
+
+    /** Prepare for a new search from BOARD with no time limit. */
+    private void startSearch(Board board) {
+        _root = board;
+        _nodes.reset();
+        _forks.reset();
+        _bestMove = 0;
+        _depth = 0;
+        _deadline = Long.MAX_VALUE;
+        _aborted = false;
+    }
+
+    /** Search BOARD to DEPTH plies and return its value, setting _bestMove
+     *  to the best move found (unless the search is abandoned). */
+    private int search(Board board, int depth) {
+        int sense = board.whoseMove() == RED ? 1 : -1;
+        Node root = new Node(null, new Board(board), 0, depth, sense,
+                             -INFTY, INFTY);
+        int value = _pool.invoke(root);
+        if (!_aborted) {
+            _bestMove = root._best;
+        }
+        return value;
+    }
+
+    /** The search of one position, as a task.  Nodes that are forked
+     *  have their own copies of the board, made when they start in the
+     *  scratch space of the thread that runs them (see Frame); the rest
+     *  share their parent's board, as in a serial search. */
+    private class Node extends RecursiveTask<Integer> {
+
+        /** Version of my serialized form, which is never used. */
+        private static final long serialVersionUID = 1L;
+
+        /** The search to DEPTH plies with window ALPHA to BETA, from red's
+         *  point of view, maximizing if SENSE is 1 and minimizing if it is
+         *  -1, as a child of PARENT (null at the root), of BOARD if it is
+         *  not null, and otherwise of a copy of PARENT's board after the
+         *  packed move MOVE. */
+        Node(Node parent, Board board, int move, int depth, int sense,
+             int alpha, int beta) {
+            _parent = parent;
+            _board = board;
+            _move = move;
+            _depth = depth;
+            _sense = sense;
+            _alpha = alpha;
+            _beta = beta;
+        }
+
+        @Override
+        protected Integer compute() {
+            return value();
+        }
+
+        /** Return the value of my position, using the next frame of the
+         *  current thread's scratch space.  If I was forked, first copy
+         *  my position into that frame.  My parent may already have
+         *  returned, and its board changed, if it was cut off, so the
+         *  copy is used only if I have not been cut off since. */
+        private int value() {
+            Frames frames = FRAMES.get();
+            Frame frame = frames.push();
+            int score = 0;
+            if (_board == null) {
+                frame._board.copyFrom(_parent._board);
+                if (!cutOff()) {
+                    _board = frame._board;
+                    _board.makeMoveUnchecked(_move);
+                }
+            }
+            if (_board != null) {
+                score = search(frame);
+            }
+            frames.pop();
+            return score;
+        }
+
+        /** Return true iff this search or that of an ancestor has been
+         *  cut off, or the whole search abandoned. */
+        private boolean cutOff() {
+            if (_aborted) {
+                return true;
+            }
+            for (Node node = this; node != null; node = node._parent) {
+                if (node._cutoff) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /** Return the value of my position, searching my younger brothers
+         *  in parallel if I am deep enough, with their moves and tasks in
+         *  FRAME. */
+        private int search(Frame frame) {
+            if (_depth < MIN_SPLIT_DEPTH) {
+                return serial(_board, _depth, 0, _sense, _alpha, _beta);
+            }
+            if (visit()) {
+                return 0;
+            }
+            Board board = _board;
+            if (board.computeWinner() != null) {
+                return staticScore(board, WINNING_VALUE + _depth,
+                                   _evaluator);
+            }
+            int[] moves = frame._moves;
+            int numMoves = board.legalMoves(moves, 0);
+            sortMoves(board, moves, numMoves);
+            board.makeMoveUnchecked(moves[0]);
+            int bestScore = new Node(this, board, 0, _depth - 1, -_sense,
+                                     _alpha, _beta).value();
+            board.undoUnchecked();
+            _best = moves[0];
+            int alpha = _alpha, beta = _beta;
+            if (_sense == 1) {
+                alpha = Math.max(alpha, bestScore);
+            } else {
+                beta = Math.min(beta, bestScore);
+            }
+            if (cutOff() || alpha >= beta || numMoves == 1) {
+                return bestScore;
+            }
+            Node[] brothers = frame._brothers;
+            for (int i = 1; i < numMoves; i += 1) {
+                brothers[i] = new Node(this, null, moves[i], _depth - 1,
+                                       -_sense, alpha, beta);
+                brothers[i].fork();
+                _forks.increment();
+            }
+            for (int i = 1; i < numMoves; i += 1) {
+                int score = brothers[i].join();
+                if (cutOff()) {
+                    return 0;
+                }
+                if (_sense == 1 ? score > bestScore : score < bestScore) {
+                    bestScore = score;
+                    _best = moves[i];
+                }
+                if (_sense == 1 ? score >= beta : score <= alpha) {
+                    _cutoff = true;
+                    for (int k = i + 1; k < numMoves; k += 1) {
+                        brothers[k].cancel(false);
+                    }
+                    return bestScore;
+                }
+            }
+            return bestScore;
+        }
+
+        /** Return the value of BOARD, searched serially to DEPTH plies
+         *  with SENSE and window ALPHA to BETA, as for the constructor,
+         *  at PLY plies below me, generating moves into the buffers of the
+         *  current thread.  If PLY is 0, record the best move in _best. */
+        private int serial(Board board, int depth, int ply, int sense,
+                           int alpha, int beta) {
+            if (visit()) {
+                return 0;
+            }
+            if (depth == 0 || board.computeWinner() != null) {
+                return staticScore(board, WINNING_VALUE + depth,
+                                   _evaluator);
+            }
+            int[] moves = BUFFERS.get()[ply];
+            int numMoves = board.legalMoves(moves, 0);
+            sortMoves(board, moves, numMoves);
+            int bestScore = -sense * INFTY;
+            for (int i = 0; i < numMoves; i += 1) {
+                board.makeMoveUnchecked(moves[i]);
+                int score = serial(board, depth - 1, ply + 1, -sense,
+                                   alpha, beta);
+                board.undoUnchecked();
+                if (_aborted) {
+                    return 0;
+                }
+                if (sense == 1 ? score > bestScore : score < bestScore) {
+                    bestScore = score;
+                    if (ply == 0) {
+                        _best = moves[i];
+                    }
+                }
+                if (sense == 1) {
+                    alpha = Math.max(alpha, score);
+                } else {
+                    beta = Math.min(beta, score);
+                }
+                if (alpha >= beta) {
+                    break;
+                }
+            }
+            return bestScore;
+        }
+
+        /** Count a visit to a node in my search.  Return true iff the
+         *  search should not continue, because the time limit has passed
+         *  or I have been cut off. */
+        private boolean visit() {
+            _nodes.increment();
+            if (System.nanoTime() > _deadline) {
+                _aborted = true;
+            }
+            return cutOff();
+        }
+
+        /** My parent, or null if I am the root. */
+        private final Node _parent;
+        /** The position I search, or null if I have been forked and have
+         *  not yet copied it. */
+        private Board _board;
+        /** The move from my parent's position to mine, in packed form, if
+         *  I have been forked. */
+        private final int _move;
+        /** Plies to search. */
+        private final int _depth;
+        /** 1 if red is to move, else -1. */
+        private final int _sense;
+        /** The search window. */
+        private final int _alpha, _beta;
+        /** Best move found, in packed form. */
+        private int _best;
+        /** True iff one of my younger brothers caused a cutoff, so that
+         *  the searches of the rest are no longer needed. */
+        private volatile boolean _cutoff;
+    }
+
+    /** Sort the packed moves MOVES[0 .. NUMMOVES-1] from BOARD so that
+     *  those that gain more pieces come first. */
+    private static void sortMoves(Board board, int[] moves, int numMoves) {
+        for (int i = 1; i < numMoves; i += 1) {
+            int move = moves[i];
+            int gain = gain(board, move);
+            int j;
+            for (j = i; j > 0 && gain(board, moves[j - 1]) < gain; j -= 1) {
+                moves[j] = moves[j - 1];
+            }
+            moves[j] = move;
+        }
+    }
+
+    /** Return the number of pieces the packed move MOVE gains on BOARD
+     *  for the player to move. */
+    private static int gain(Board board, int move) {
+        return board.captures(move) + (Move.isJump(move) ? 0 : 1);
+    }
+
+    /** Scratch space for the search of one node by one thread. */
+    private static class Frame {
+        /** The position of the node, if it was forked. */
+        private final Board _board = new Board();
+        /** The node's moves, if it splits. */
+        private final int[] _moves = new int[Board.MAX_LEGAL_MOVES];
+        /** The tasks for its younger brothers, indexed like _moves. */
+        private final Node[] _brothers = new Node[Board.MAX_LEGAL_MOVES];
+    }
+
+    /** The frames of one thread, used as a stack.  A thread starts
+     *  another node only while searching the last one it started (in
+     *  the search of an eldest brother, or while waiting to join a
+     *  task), so a node's frame is free again when its search returns.
+     *  Frames are allocated only when the stack reaches a new depth. */
+    private static class Frames {
+        /** Return the next free frame, and mark it in use. */
+        Frame push() {
+            if (_top == _frames.size()) {
+                _frames.add(new Frame());
+            }
+            _top += 1;
+            return _frames.get(_top - 1);
+        }
+
+        /** Free the frame returned by the last push. */
+        void pop() {
+            _top -= 1;
+        }
+
+        /** The frames, of which the first _top are in use. */
+        private final ArrayList<Frame> _frames = new ArrayList<>();
+        /** Number of frames in use. */
+        private int _top;
+    }
+
+    /** Each thread's frames. */
+    private static final ThreadLocal<Frames> FRAMES =
+        ThreadLocal.withInitial(Frames::new);
+
+    /** Move buffers for serial searches, indexed by ply, for each
+     *  thread. */
+    private static final ThreadLocal<int[][]> BUFFERS =
+        ThreadLocal.withInitial(() ->
+            new int[MIN_SPLIT_DEPTH][Board.MAX_LEGAL_MOVES]);
+
+    /** The pool in which the search runs. */
+    private ForkJoinPool _pool;
+
+    /** Number of positions visited in the current search. */
+    private final LongAdder _nodes = new LongAdder();
+
+    /** Number of tasks forked in the current search. */
+    private final LongAdder _forks = new LongAdder();
+
+    /** Best move at the root found by the last search, in packed form. */
+    private int _bestMove;
+
+    /** The position searched by the last findMove. */
+    private Board _root;
+
+    /** Evaluation of leaves. */
+    private Evaluator _evaluator = Evaluator.MATERIAL;
+
+    /** Called after each completed iteration of a timed search. */
+    private Consumer<Engine> _notifier = (e) -> { };
+
+    /** Value of the last search. */
+    private int _value;
+
+    /** Depth of the last completed search. */
+    private int _depth;
+
+    /** Time (as from System.nanoTime) at which to abandon the current
+     *  search. */
+    private volatile long _deadline;
+
+    /** True iff the current search has been abandoned. */
+    private volatile boolean _aborted;
+}
@@ -0,0 +1,46 @@
+/* Skeleton code copyright (C) 2008, 2022 Paul N. Hilfinger and the
+ * Regents of the University of California.  Do not distribute this or any
+ * derivative work without permission. */
+
+package ataxx;
+
+import org.junit.Test;
+
+import static ataxx.SearcherTest.*;
+import static org.junit.Assert.*;
+
+/** Tests of the YbwSearcher class.
+ *  @author J. Masoudi
+ */
+public class YbwSearcherTest {
+
+    @Test
+    public void testValues() {
+        YbwSearcher serial = new YbwSearcher(),
+            parallel = new YbwSearcher();
+        parallel.setThreads(4);
+        for (int k = 0; k < 8; k += 1) {
+            Board b = randomPosition(5 * k, 20 + k);
+            int expected = reference(b, 4);
+            Move mv = serial.findMove(b, 4);
+            assertEquals("wrong serial value", expected, serial.value());
+            assertTrue("illegal move found", b.legalMove(mv));
+            mv = parallel.findMove(b, 4);
+            assertEquals("wrong parallel value", expected, parallel.value());
+            assertTrue("illegal move found", b.legalMove(mv));
+        }
+    }
+
+    @Test
+    public void testForks() {
+        YbwSearcher serial = new YbwSearcher();
+        Board b = randomPosition(10, 3);
+        Board b0 = new Board(b);
+        serial.findMove(b, 5);
+        assertTrue("no tasks forked", serial.forks() > 0);
+        assertEquals("board changed", b0, b);
+        Move mv = serial.findMove(b, Searcher.MAX_PLY, 50, 200);
+        assertTrue("illegal move found", b.legalMove(mv));
+        assertTrue("deepening stopped early", serial.depth() >= 2);
+    }
+}
@@ -0,0 +1,85 @@
+/* Skeleton code copyright (C) 2008, 2022 Paul N. Hilfinger and the
+ * Regents of the University of California.  Do not distribute this or any
+ * derivative work without permission. */
+
+package ataxx;
+
+import java.util.Random;
+
+import static ataxx.PieceColor.*;
+
+/** Random keys for the Zobrist hashing of Boards.
+ *
+ *  The key of a position is the exclusive or of one random 64-bit value
+ *  for each occupied square (depending on its contents), one for the side
+ *  to move if it is BLUE, and one for the current count of consecutive
+ *  jumps (which, because of the JUMP_LIMIT rule, affects the value of a
+ *  position).  Because exclusive or is its own inverse, the Board can
+ *  maintain its key incrementally: each square whose contents change
+ *  costs two XORs.  The keys are generated from a fixed seed, so that
+ *  keys are the same from run to run.
+ *  @author J. Masoudi
+ */
+class Zobrist {
+
+    /** Return the key component for a square with bit number BIT whose
+     *  contents are COLOR.  Empty squares contribute nothing. */
+    static long square(PieceColor color, int bit) {
+        switch (color) {
+        case RED:
+            return RED_KEYS[bit];
+        case BLUE:
+            return BLUE_KEYS[bit];
+        case BLOCKED:
+            return BLOCK_KEYS[bit];
+        default:
+            return 0;
+        }
+    }
+
+    /** Return the key component that changes the contents of the square
+     *  with bit number BIT from one piece color to the other. */
+    static long flip(int bit) {
+        return RED_KEYS[bit] ^ BLUE_KEYS[bit];
+    }
+
+    /** Return the key component for WHO being the side to move. */
+    static long side(PieceColor who) {
+        return who == BLUE ? BLUE_TO_MOVE : 0;
+    }
+
+    /** Return the key component for a count of N consecutive jumps. */
+    static long jumps(int n) {
+        return JUMP_KEYS[Math.min(n, Board.JUMP_LIMIT)];
+    }
+
+    /** Seed for the key generator. */
+    private static final long SEED = 0x61b_a7a_aL;
+
+    /** Keys for red pieces, blue pieces, and blocks, indexed by bit
+     *  number. */
+    private static final long[]
+        RED_KEYS = new long[Squares.SIZE],
+        BLUE_KEYS = new long[Squares.SIZE],
+        BLOCK_KEYS = new long[Squares.SIZE];
+
+    /** Keys for each possible jump count.  The count 0 has key 0, so that
+     *  positions reached by an extend need no jump component. */
+    private static final long[] JUMP_KEYS = new long[Board.JUMP_LIMIT + 1];
+
+    /** Key for BLUE being the side to move. */
+    private static final long BLUE_TO_MOVE;
+
+    static {
+        Random random = new Random(SEED);
+        for (int b = 0; b < Squares.SIZE; b += 1) {
+            RED_KEYS[b] = random.nextLong();
+            BLUE_KEYS[b] = random.nextLong();
+            BLOCK_KEYS[b] = random.nextLong();
+        }
+        for (int n = 1; n <= Board.JUMP_LIMIT; n += 1) {
+            JUMP_KEYS[n] = random.nextLong();
+        }
+        BLUE_TO_MOVE = random.nextLong();
+    }
+}